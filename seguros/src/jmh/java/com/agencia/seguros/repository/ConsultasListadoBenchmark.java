@@ -0,0 +1,205 @@
+package com.agencia.seguros.repository;
+
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Primera página del listado (ORDER BY fecha_factura DESC, id DESC LIMIT 21) con cada
+ * filtro, sobre 1M de facturas, en una base MySQL aparte (-Dbenchmark.db.url). El esquema
+ * sale de las migraciones; las filas se generan una sola vez y quedan para las corridas
+ * siguientes.
+ * <p>
+ * "estado-upper" es el predicado anterior (upper(estado) = ?), que no puede usar índice;
+ * "estado" es el predicado tipado sobre idx_facturas_estado_fecha_id. Al preparar se
+ * imprime el EXPLAIN de cada consulta.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConsultasListadoBenchmark {
+
+    private static final int FILAS = Integer.getInteger("benchmark.db.filas", 1_000_000);
+    private static final int LOTE = 5_000;
+    private static final int ASEGURADORAS = 25;
+
+    private static final String[] ESTADOS = {"NUEVA", "PENDIENTE_ASIGNACION", "LISTA_PARA_ENVIAR", "ENVIADA_A_SEGURO", "CERRADA_MANUALMENTE"};
+    private static final String[] SUCURSALES = {"SANTA_FE", "RAFAELA", "RECONQUISTA"};
+    private static final String[] PUNTOS_DE_VENTA = {"0104", "0109", "0105"};
+
+    private static final String SELECT_PAGINA = """
+        SELECT f.id, f.numero_factura, f.numero_orden, f.numero_siniestro, f.estado, a.nombre,
+               f.nombre_archivo, f.fecha_factura, f.fecha_envio, f.observaciones_admin
+        FROM facturas f
+        LEFT JOIN aseguradoras a ON a.id = f.aseguradora_id
+        WHERE %s
+        ORDER BY f.fecha_factura DESC, f.id DESC
+        LIMIT 21
+    """;
+
+    private static final Map<String, String> FILTROS = Map.of(
+            "estado-upper", "UPPER(f.estado) = 'LISTA_PARA_ENVIAR'",
+            "estado", "f.estado = 'LISTA_PARA_ENVIAR'",
+            "aseguradora", "f.aseguradora_id = 7",
+            "sucursal", "f.sucursal = 'RAFAELA'",
+            "vencidas", "f.fecha_factura IS NOT NULL AND f.fecha_envio IS NULL AND f.fecha_factura < CURRENT_DATE - INTERVAL 14 DAY"
+    );
+
+    @Param({"estado-upper", "estado", "aseguradora", "sucursal", "vencidas"})
+    public String filtro;
+
+    private Connection conexion;
+    private PreparedStatement pagina;
+    private PreparedStatement conteo;
+
+    @Setup(Level.Trial)
+    public void preparar() throws SQLException {
+        String url = System.getProperty("benchmark.db.url");
+        String usuario = System.getProperty("benchmark.db.usuario", "root");
+        String password = System.getProperty("benchmark.db.password", "");
+
+        Flyway.configure().dataSource(url, usuario, password).load().migrate();
+
+        conexion = DriverManager.getConnection(url, usuario, password);
+        poblar(conexion);
+
+        String where = FILTROS.get(filtro);
+        String sql = SELECT_PAGINA.formatted(where);
+        explicar(conexion, sql);
+
+        pagina = conexion.prepareStatement(sql);
+        conteo = conexion.prepareStatement("SELECT COUNT(*) FROM facturas f WHERE " + where);
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() throws SQLException {
+        conexion.close();
+    }
+
+    @Benchmark
+    public long primeraPagina() throws SQLException {
+        long suma = 0;
+        try (ResultSet rs = pagina.executeQuery()) {
+            while (rs.next()) {
+                suma += rs.getLong(1);
+            }
+        }
+        return suma;
+    }
+
+    @Benchmark
+    public long total() throws SQLException {
+        try (ResultSet rs = conteo.executeQuery()) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    /**
+     * Completa hasta FILAS facturas: fechas de los últimos 3 años, estados y sucursales
+     * repartidos, una de cada diez sin aseguradora y las enviadas con fecha_envio.
+     */
+    private static void poblar(Connection conexion) throws SQLException {
+        long existentes;
+        try (Statement st = conexion.createStatement();
+             ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM facturas")) {
+            rs.next();
+            existentes = rs.getLong(1);
+        }
+        if (existentes >= FILAS) {
+            return;
+        }
+
+        conexion.setAutoCommit(false);
+        try (Statement st = conexion.createStatement()) {
+            for (int i = 1; i <= ASEGURADORAS; i++) {
+                st.executeUpdate("INSERT IGNORE INTO aseguradoras (id, nombre, email) VALUES ("
+                        + i + ", 'Aseguradora " + i + "', 'aseguradora" + i + "@ejemplo.com')");
+            }
+        }
+
+        Random random = new Random(42);
+        LocalDate hoy = LocalDate.now();
+        String insert = """
+            INSERT INTO facturas (aseguradora_id, estado, nombre_archivo, fecha_recepcion, fecha_factura,
+                                  fecha_envio, numero_factura, numero_siniestro, numero_orden, sucursal)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+        """;
+
+        try (PreparedStatement ps = conexion.prepareStatement(insert)) {
+            for (long i = existentes; i < FILAS; i++) {
+                LocalDate fecha = hoy.minusDays(random.nextInt(3 * 365));
+                String estado = ESTADOS[random.nextInt(ESTADOS.length)];
+                int sucursal = random.nextInt(SUCURSALES.length);
+                boolean enviada = estado.equals("ENVIADA_A_SEGURO") || estado.equals("CERRADA_MANUALMENTE");
+
+                if (random.nextInt(10) == 0) {
+                    ps.setNull(1, java.sql.Types.BIGINT);
+                } else {
+                    ps.setLong(1, 1 + random.nextInt(ASEGURADORAS));
+                }
+                ps.setString(2, estado);
+                ps.setString(3, "bench-" + i + ".pdf");
+                ps.setTimestamp(4, Timestamp.valueOf(fecha.atTime(10, 0)));
+                ps.setDate(5, Date.valueOf(fecha));
+                ps.setTimestamp(6, enviada ? Timestamp.valueOf(fecha.plusDays(3).atTime(12, 0)) : null);
+                ps.setString(7, PUNTOS_DE_VENTA[sucursal] + "-" + String.format("%08d", i));
+                ps.setString(8, String.valueOf(40_000_000 + random.nextInt(10_000_000)));
+                ps.setString(9, String.valueOf(300_000 + random.nextInt(700_000)));
+                ps.setString(10, SUCURSALES[sucursal]);
+                ps.addBatch();
+
+                if ((i + 1) % LOTE == 0) {
+                    ps.executeBatch();
+                    conexion.commit();
+                }
+            }
+            ps.executeBatch();
+            conexion.commit();
+        } finally {
+            conexion.setAutoCommit(true);
+        }
+
+        try (Statement st = conexion.createStatement()) {
+            st.execute("ANALYZE TABLE facturas");
+        }
+    }
+
+    private static void explicar(Connection conexion, String sql) throws SQLException {
+        try (Statement st = conexion.createStatement();
+             ResultSet rs = st.executeQuery("EXPLAIN " + sql)) {
+            while (rs.next()) {
+                System.out.println("EXPLAIN " + rs.getString("table") + ": type=" + rs.getString("type")
+                        + " key=" + rs.getString("key") + " rows=" + rs.getString("rows")
+                        + " extra=" + rs.getString("Extra"));
+            }
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.agencia.seguros.service;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Normalización para detección y detección de aseguradora por alias: la implementación
+ * anterior (normalizar el texto entero con replaceAll y buscar alias por alias) contra
+ * el tokenizador y el autómata de DetectorAseguradoras.
+ * <p>
+ * "asunto" son asuntos de correo cortos; "pdf" es el texto de las muestras.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DeteccionAseguradorasBenchmark {
+
+    @Param({"asunto", "pdf"})
+    public String origen;
+
+    private final List<String> textos = new ArrayList<>();
+    private final DetectorAseguradoras detector = new DetectorAseguradoras();
+    private int indice;
+
+    @Setup(Level.Trial)
+    public void preparar() throws IOException {
+        if ("asunto".equals(origen)) {
+            textos.add("Factura A 0104-00062226 - Siniestro 40012345 - LA SEGUNDA");
+            textos.add("RV: Envío de factura orden de reparación 344693 Federación Patronal");
+            textos.add("Fwd: comprobante electrónico - Sancor Seguros Coop. Ltda.");
+            textos.add("Factura pendiente de pago (sin aseguradora)");
+            return;
+        }
+
+        Path carpeta = Files.createTempDirectory("bench-deteccion-");
+        try {
+            for (Path pdf : MuestrasPdf.cargar(carpeta)) {
+                try (PDDocument doc = PDDocument.load(pdf.toFile())) {
+                    textos.add(new PDFTextStripper().getText(doc));
+                }
+            }
+        } finally {
+            MuestrasPdf.borrar(carpeta);
+        }
+    }
+
+    @Benchmark
+    public String normalizacionLegado() {
+        return Legado.normalizarTextoDeteccion(siguiente());
+    }
+
+    @Benchmark
+    public void normalizacionTokenizar(Blackhole bh) {
+        DetectorAseguradoras.tokenizar(siguiente(), bh::consume);
+    }
+
+    @Benchmark
+    public String deteccionLegado() {
+        return Legado.detectarNombreAseguradoraPorAliases(siguiente());
+    }
+
+    @Benchmark
+    public String deteccionAutomata() {
+        return detector.detectar(siguiente());
+    }
+
+    private String siguiente() {
+        indice = (indice + 1) % textos.size();
+        return textos.get(indice);
+    }
+
+    /**
+     * Implementación previa de MailReaderService, como referencia de comparación.
+     */
+    static final class Legado {
+
+        private Legado() {
+        }
+
+        static String normalizarTextoDeteccion(String input) {
+            if (input == null) return "";
+            String lower = input.toLowerCase(Locale.ROOT);
+            String sinTildes = Normalizer.normalize(lower, Normalizer.Form.NFD).replaceAll("\\p{M}+", "");
+            String limpio = sinTildes.replaceAll("[^a-z0-9]+", " ");
+            return limpio.trim().replaceAll("\\s{2,}", " ");
+        }
+
+        static String detectarNombreAseguradoraPorAliases(String texto) {
+            if (texto == null || texto.isBlank()) return null;
+            String textoNorm = normalizarTextoDeteccion(texto);
+
+            for (Map.Entry<String, List<String>> entry : DetectorAseguradoras.ASEGURADORA_ALIASES.entrySet()) {
+                for (String alias : entry.getValue()) {
+                    if (contieneFrase(textoNorm, normalizarTextoDeteccion(alias))) {
+                        return entry.getKey();
+                    }
+                }
+            }
+            return null;
+        }
+
+        private static boolean contieneFrase(String textoNorm, String fraseNorm) {
+            if (fraseNorm == null || fraseNorm.isBlank()) return false;
+            String t = " " + textoNorm + " ";
+            String f = " " + fraseNorm + " ";
+            return t.contains(f);
+        }
+    }
+}
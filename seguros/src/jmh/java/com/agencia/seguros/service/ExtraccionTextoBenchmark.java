@@ -0,0 +1,97 @@
+package com.agencia.seguros.service;
+
+import com.agencia.seguros.config.ExtraccionProperties;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Extracción de texto (PDFTextStripper) y parseo de números (extraerConModo) en los dos
+ * modos que usa el servicio: orden de flujo y ordenado por posición. Cada invocación
+ * procesa un documento distinto (rotando entre las muestras), así el resultado es
+ * tiempo promedio por documento.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExtraccionTextoBenchmark {
+
+    @Param({"flujo", "ordenado"})
+    public String modo;
+
+    private Path carpeta;
+    private final List<PDDocument> documentos = new ArrayList<>();
+    private final List<String> textos = new ArrayList<>();
+    private ExtraccionPdfService servicio;
+    private ReglasExtraccion.Campos reglas;
+    private int indice;
+
+    @Setup(Level.Trial)
+    public void preparar() throws IOException {
+        MuestrasPdf.silenciarSalida();
+        carpeta = Files.createTempDirectory("bench-texto-");
+
+        for (Path pdf : MuestrasPdf.cargar(carpeta)) {
+            PDDocument doc = PDDocument.load(pdf.toFile());
+            documentos.add(doc);
+            textos.add(stripper().getText(doc));
+        }
+
+        ExtraccionProperties properties = new ExtraccionProperties();
+        servicio = MuestrasPdf.servicioExtraccion(properties);
+        reglas = new ReglasExtraccionService(properties).actuales().para(null);
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() throws IOException {
+        for (PDDocument doc : documentos) {
+            doc.close();
+        }
+        servicio.detener();
+        MuestrasPdf.borrar(carpeta);
+    }
+
+    @Benchmark
+    public String stripping() throws IOException {
+        return stripper().getText(documentos.get(siguiente()));
+    }
+
+    @Benchmark
+    public Map<String, String> extraerConModo() {
+        return servicio.extraerConModo(textos.get(siguiente()), reglas);
+    }
+
+    private PDFTextStripper stripper() throws IOException {
+        PDFTextStripper stripper = new PDFTextStripper();
+        stripper.setSortByPosition("ordenado".equals(modo));
+        return stripper;
+    }
+
+    private int siguiente() {
+        indice = (indice + 1) % documentos.size();
+        return indice;
+    }
+}
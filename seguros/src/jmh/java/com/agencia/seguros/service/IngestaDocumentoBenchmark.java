@@ -0,0 +1,93 @@
+package com.agencia.seguros.service;
+
+import com.agencia.seguros.config.ExtraccionProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Un documento de punta a punta, lo que antes hacía guardarAdjuntoPdf: guardar el
+ * adjunto en el almacén por contenido (copia + SHA-256) y extraer sus datos, con cada
+ * perfil de extracción. "extraccion" mide solo la extracción sobre el archivo ya guardado.
+ * <p>
+ * Como el almacén deduplica, desde la segunda vuelta cada guardado escribe y hashea el
+ * temporal pero reutiliza el archivo final (el caso de un adjunto repetido).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IngestaDocumentoBenchmark {
+
+    @Param({"primera-pagina", "completo"})
+    public String perfil;
+
+    private Path carpeta;
+    private final List<byte[]> contenidos = new ArrayList<>();
+    private final List<Path> guardados = new ArrayList<>();
+    private AlmacenPdfService almacen;
+    private ExtraccionPdfService extraccion;
+    private int indice;
+
+    @Setup(Level.Trial)
+    public void preparar() throws IOException {
+        MuestrasPdf.silenciarSalida();
+        carpeta = Files.createTempDirectory("bench-ingesta-");
+
+        almacen = new AlmacenPdfService();
+        ReflectionTestUtils.setField(almacen, "rutaArchivos", carpeta.resolve("archivos").toString());
+
+        ExtraccionProperties properties = new ExtraccionProperties();
+        properties.setPerfil(perfil);
+        extraccion = MuestrasPdf.servicioExtraccion(properties);
+
+        for (Path pdf : MuestrasPdf.cargar(carpeta)) {
+            byte[] contenido = Files.readAllBytes(pdf);
+            contenidos.add(contenido);
+            guardados.add(almacen.guardar(new ByteArrayInputStream(contenido)).ruta());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() throws IOException {
+        extraccion.detener();
+        MuestrasPdf.borrar(carpeta);
+    }
+
+    @Benchmark
+    public ResultadoExtraccion guardarYExtraer() throws IOException {
+        AlmacenPdfService.Almacenado almacenado = almacen.guardar(new ByteArrayInputStream(contenidos.get(siguiente())));
+        return extraccion.extraer(almacenado.ruta());
+    }
+
+    @Benchmark
+    public ResultadoExtraccion extraccion() throws IOException {
+        return extraccion.extraer(guardados.get(siguiente()));
+    }
+
+    private int siguiente() {
+        indice = (indice + 1) % contenidos.size();
+        return indice;
+    }
+}
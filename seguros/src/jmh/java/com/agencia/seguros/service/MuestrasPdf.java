@@ -0,0 +1,116 @@
+package com.agencia.seguros.service;
+
+import com.agencia.seguros.config.ExtraccionProperties;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * PDFs de muestra para los benchmarks: los de la carpeta indicada en -Dbenchmark.pdfs
+ * (por defecto ../facturas_pdf) más facturas generadas de 1, 5 y 40 páginas, para que
+ * los resultados no dependan solo de las muestras disponibles.
+ */
+final class MuestrasPdf {
+
+    private static final String CARPETA_POR_DEFECTO = "../facturas_pdf";
+
+    private MuestrasPdf() {
+    }
+
+    /**
+     * Muestras reales (si la carpeta existe) + generadas dentro de carpetaGenerados.
+     */
+    static List<Path> cargar(Path carpetaGenerados) throws IOException {
+        List<Path> muestras = new ArrayList<>();
+
+        Path carpeta = Path.of(System.getProperty("benchmark.pdfs", CARPETA_POR_DEFECTO));
+        if (Files.isDirectory(carpeta)) {
+            try (Stream<Path> archivos = Files.list(carpeta)) {
+                archivos.filter(p -> p.getFileName().toString().toLowerCase().endsWith(".pdf"))
+                        .sorted()
+                        .forEach(muestras::add);
+            }
+        }
+
+        muestras.add(generar(carpetaGenerados.resolve("generada-1.pdf"), 1, "La Segunda"));
+        muestras.add(generar(carpetaGenerados.resolve("generada-5.pdf"), 5, "Sancor Seguros"));
+        muestras.add(generar(carpetaGenerados.resolve("generada-40.pdf"), 40, "Federación Patronal"));
+        return muestras;
+    }
+
+    /**
+     * Factura con encabezado (número, fecha, siniestro, orden) en la primera página y
+     * detalle de repuestos en el resto, parecida a las que llegan por correo.
+     */
+    static Path generar(Path destino, int paginas, String aseguradora) throws IOException {
+        try (PDDocument doc = new PDDocument()) {
+            for (int p = 1; p <= paginas; p++) {
+                PDPage page = new PDPage(PDRectangle.A4);
+                doc.addPage(page);
+
+                try (PDPageContentStream contenido = new PDPageContentStream(doc, page)) {
+                    contenido.beginText();
+                    contenido.setFont(PDType1Font.HELVETICA, 10);
+                    contenido.setLeading(13);
+                    contenido.newLineAtOffset(50, 790);
+
+                    if (p == 1) {
+                        contenido.showText("FACTURA A   N° 0104-" + String.format("%08d", 62000 + paginas));
+                        contenido.newLine();
+                        contenido.showText("Fecha: 11/12/2025   CUIT 30-12345678-9");
+                        contenido.newLine();
+                        contenido.showText("Cliente: " + aseguradora + " S.A.");
+                        contenido.newLine();
+                        contenido.showText("Nro. de siniestro: 40012345   Orden de Reparación N° 00344693");
+                        contenido.newLine();
+                    }
+                    for (int linea = 0; linea < 50; linea++) {
+                        contenido.showText(String.format("%03d  Repuesto %d - mano de obra chapa y pintura   $ %d,00",
+                                linea + 1, p * 100 + linea, 1500 + linea * 37));
+                        contenido.newLine();
+                    }
+                    contenido.endText();
+                }
+            }
+            doc.save(destino.toFile());
+        }
+        return destino;
+    }
+
+    /**
+     * Servicio de extracción armado a mano (sin contexto Spring) con las reglas incluidas.
+     */
+    static ExtraccionPdfService servicioExtraccion(ExtraccionProperties properties) throws IOException {
+        return new ExtraccionPdfService(new DetectorAseguradoras(), properties, new ReglasExtraccionService(properties));
+    }
+
+    /**
+     * Los servicios loguean cada documento por System.out; en el fork del benchmark
+     * eso solo agrega ruido (y costo de consola) a la medición.
+     */
+    static void silenciarSalida() {
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    static void borrar(Path carpeta) throws IOException {
+        if (carpeta == null || !Files.exists(carpeta)) {
+            return;
+        }
+        try (Stream<Path> archivos = Files.walk(carpeta)) {
+            for (Path p : archivos.sorted((a, b) -> b.compareTo(a)).toList()) {
+                Files.deleteIfExists(p);
+            }
+        }
+    }
+}
@@ -13,6 +13,22 @@ public class CorreoImapProperties {
     private String password;
     private String folder;
 
+    // "imaps" en producción; "imap" para servidores locales de prueba (ej. GreenMail)
+    private String protocolo = "imaps";
+
+    // POLLING (cada 60s) o IDLE (push, con polling como respaldo)
+    private String modo = "POLLING";
+
+    // Cada cuánto se corta y renueva el IDLE (los servidores lo cortan a los ~29 min)
+    private int idleRenovarSegundos = 20 * 60;
+
+    // Espera antes de reconectar cuando se cae la conexión IDLE
+    private int idleReconexionSegundos = 30;
+
+    // Sincronizaciones que puede fallar un correo antes de pasarlo a correos_fallidos
+    // (DEAD_LETTER) y dejar que el checkpoint avance
+    private int maxIntentos = 3;
+
     // Getters y setters
 
     public String getHost() {
@@ -54,5 +70,48 @@ public class CorreoImapProperties {
     public void setFolder(String folder) {
         this.folder = folder;
     }
-}
 
+    public String getProtocolo() {
+        return protocolo;
+    }
+
+    public void setProtocolo(String protocolo) {
+        this.protocolo = protocolo;
+    }
+
+    public String getModo() {
+        return modo;
+    }
+
+    public void setModo(String modo) {
+        this.modo = modo;
+    }
+
+    public boolean isModoIdle() {
+        return "IDLE".equalsIgnoreCase(modo);
+    }
+
+    public int getIdleRenovarSegundos() {
+        return idleRenovarSegundos;
+    }
+
+    public void setIdleRenovarSegundos(int idleRenovarSegundos) {
+        this.idleRenovarSegundos = idleRenovarSegundos;
+    }
+
+    public int getIdleReconexionSegundos() {
+        return idleReconexionSegundos;
+    }
+
+    public void setIdleReconexionSegundos(int idleReconexionSegundos) {
+        this.idleReconexionSegundos = idleReconexionSegundos;
+    }
+
+    public int getMaxIntentos() {
+        return maxIntentos;
+    }
+
+    public void setMaxIntentos(int maxIntentos) {
+        this.maxIntentos = maxIntentos;
+    }
+}
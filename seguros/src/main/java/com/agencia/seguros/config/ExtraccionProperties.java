@@ -0,0 +1,288 @@
+package com.agencia.seguros.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Perfiles de extracción de texto de los PDF: cuántas páginas se leen y, opcionalmente,
+ * qué regiones. Si con el perfil faltan campos requeridos se hace una pasada completa.
+ */
+@Component
+@ConfigurationProperties(prefix = "app.extraccion")
+public class ExtraccionProperties {
+
+    // Perfil que usa la ingesta
+    private String perfil = "primera-pagina";
+
+    private Map<String, Perfil> perfiles = new LinkedHashMap<>(Map.of(
+            "primera-pagina", new Perfil(1),
+            "completo", new Perfil(0)
+    ));
+
+    private Limites limites = new Limites();
+
+    // YAML con reglas de extracción (vacío = las incluidas en la aplicación); se recarga al cambiar
+    private String archivoReglas;
+
+    private Cache cache = new Cache();
+
+    // Nombre del adjunto y asunto antes que el PDF (ver reglas nombreArchivo/asunto)
+    private boolean preParseo = true;
+
+    public String getPerfil() {
+        return perfil;
+    }
+
+    public void setPerfil(String perfil) {
+        this.perfil = perfil;
+    }
+
+    public Map<String, Perfil> getPerfiles() {
+        return perfiles;
+    }
+
+    public void setPerfiles(Map<String, Perfil> perfiles) {
+        this.perfiles = perfiles;
+    }
+
+    public String getArchivoReglas() {
+        return archivoReglas;
+    }
+
+    public void setArchivoReglas(String archivoReglas) {
+        this.archivoReglas = archivoReglas;
+    }
+
+    public boolean isPreParseo() {
+        return preParseo;
+    }
+
+    public void setPreParseo(boolean preParseo) {
+        this.preParseo = preParseo;
+    }
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    public void setCache(Cache cache) {
+        this.cache = cache;
+    }
+
+    public Limites getLimites() {
+        return limites;
+    }
+
+    public void setLimites(Limites limites) {
+        this.limites = limites;
+    }
+
+    /**
+     * Límites por documento para que un PDF patológico no afecte al resto de la JVM.
+     * 0 desactiva el límite correspondiente.
+     */
+    public static class Limites {
+
+        // Lo que excede queda en archivos temporales en lugar del heap
+        private int memoriaMb = 64;
+
+        // Carpeta de los temporales (vacía = java.io.tmpdir)
+        private String carpetaTemporal;
+
+        private int tamanioMaximoMb = 25;
+        private int paginasMaximas = 200;
+
+        // Tiempo máximo de extracción por documento (carga + texto + parseo)
+        private int presupuestoSegundos = 60;
+
+        // Extracciones en curso a la vez, contando las abandonadas por presupuesto que siguen
+        // corriendo. Debe alcanzar para los workers de extracción de la ingesta más la
+        // importación masiva y la re-extracción. Sin lugar libre la extracción falla con un
+        // error reintentable (la ingesta la reprograma con backoff).
+        private int hilos = 8;
+
+        public int getMemoriaMb() {
+            return memoriaMb;
+        }
+
+        public void setMemoriaMb(int memoriaMb) {
+            this.memoriaMb = memoriaMb;
+        }
+
+        public String getCarpetaTemporal() {
+            return carpetaTemporal;
+        }
+
+        public void setCarpetaTemporal(String carpetaTemporal) {
+            this.carpetaTemporal = carpetaTemporal;
+        }
+
+        public int getTamanioMaximoMb() {
+            return tamanioMaximoMb;
+        }
+
+        public void setTamanioMaximoMb(int tamanioMaximoMb) {
+            this.tamanioMaximoMb = tamanioMaximoMb;
+        }
+
+        public int getPaginasMaximas() {
+            return paginasMaximas;
+        }
+
+        public void setPaginasMaximas(int paginasMaximas) {
+            this.paginasMaximas = paginasMaximas;
+        }
+
+        public int getPresupuestoSegundos() {
+            return presupuestoSegundos;
+        }
+
+        public void setPresupuestoSegundos(int presupuestoSegundos) {
+            this.presupuestoSegundos = presupuestoSegundos;
+        }
+
+        public int getHilos() {
+            return hilos;
+        }
+
+        public void setHilos(int hilos) {
+            this.hilos = hilos;
+        }
+    }
+
+    /**
+     * Cache de resultados por contenido del PDF (tabla cache_extracciones).
+     */
+    public static class Cache {
+
+        private boolean habilitado = true;
+
+        // Al superarlo se borran las entradas usadas hace más tiempo (0 = sin tope)
+        private int tamanioMaximoMb = 256;
+
+        public boolean isHabilitado() {
+            return habilitado;
+        }
+
+        public void setHabilitado(boolean habilitado) {
+            this.habilitado = habilitado;
+        }
+
+        public int getTamanioMaximoMb() {
+            return tamanioMaximoMb;
+        }
+
+        public void setTamanioMaximoMb(int tamanioMaximoMb) {
+            this.tamanioMaximoMb = tamanioMaximoMb;
+        }
+    }
+
+    public static class Perfil {
+
+        // Primeras N páginas (0 = todo el documento)
+        private int paginas;
+
+        // Si hay regiones se lee solo el texto dentro de ellas
+        private List<Region> regiones = new ArrayList<>();
+
+        // numeroFactura, numeroSiniestro, numeroOrden, fechaFactura
+        private List<String> camposRequeridos = new ArrayList<>(List.of("numeroFactura", "fechaFactura", "numeroOrden"));
+
+        public Perfil() {}
+
+        public Perfil(int paginas) {
+            this.paginas = paginas;
+        }
+
+        public int getPaginas() {
+            return paginas;
+        }
+
+        public void setPaginas(int paginas) {
+            this.paginas = paginas;
+        }
+
+        public List<Region> getRegiones() {
+            return regiones;
+        }
+
+        public void setRegiones(List<Region> regiones) {
+            this.regiones = regiones;
+        }
+
+        public List<String> getCamposRequeridos() {
+            return camposRequeridos;
+        }
+
+        public void setCamposRequeridos(List<String> camposRequeridos) {
+            this.camposRequeridos = camposRequeridos;
+        }
+    }
+
+    /**
+     * Rectángulo en puntos (1/72"), con origen arriba a la izquierda de la página
+     * (coordenadas de PDFTextStripperByArea, no las del PDF).
+     */
+    public static class Region {
+
+        private String nombre;
+        private int pagina = 1;
+        private float x;
+        private float y;
+        private float ancho;
+        private float alto;
+
+        public String getNombre() {
+            return nombre;
+        }
+
+        public void setNombre(String nombre) {
+            this.nombre = nombre;
+        }
+
+        public int getPagina() {
+            return pagina;
+        }
+
+        public void setPagina(int pagina) {
+            this.pagina = pagina;
+        }
+
+        public float getX() {
+            return x;
+        }
+
+        public void setX(float x) {
+            this.x = x;
+        }
+
+        public float getY() {
+            return y;
+        }
+
+        public void setY(float y) {
+            this.y = y;
+        }
+
+        public float getAncho() {
+            return ancho;
+        }
+
+        public void setAncho(float ancho) {
+            this.ancho = ancho;
+        }
+
+        public float getAlto() {
+            return alto;
+        }
+
+        public void setAlto(float alto) {
+            this.alto = alto;
+        }
+    }
+}
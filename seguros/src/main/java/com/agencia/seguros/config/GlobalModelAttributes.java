@@ -1,26 +1,19 @@
 package com.agencia.seguros.config;
 
-import com.agencia.seguros.repository.UsuarioRepository;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ModelAttribute;
 
 @ControllerAdvice
 public class GlobalModelAttributes {
 
-    private final UsuarioRepository usuarioRepository;
-
-    public GlobalModelAttributes(UsuarioRepository usuarioRepository) {
-        this.usuarioRepository = usuarioRepository;
-    }
-
+    // Sale del principal de la sesión (UsuarioSesion), sin consultar la base
     @ModelAttribute("usuarioActual")
-    public Object usuarioActual() {
+    public UsuarioSesion usuarioActual() {
         var auth = SecurityContextHolder.getContext().getAuthentication();
-        if (auth == null || !auth.isAuthenticated() || "anonymousUser".equals(auth.getName())) {
+        if (auth == null || !auth.isAuthenticated()) {
             return null;
         }
-        return usuarioRepository.findByUsername(auth.getName()).orElse(null);
+        return (auth.getPrincipal() instanceof UsuarioSesion usuario) ? usuario : null;
     }
 }
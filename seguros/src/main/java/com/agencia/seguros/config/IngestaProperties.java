@@ -0,0 +1,82 @@
+package com.agencia.seguros.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuración del pipeline de ingesta: cada etapa tiene su propia cantidad de
+ * workers y su política de reintentos (backoff exponencial y luego dead-letter).
+ */
+@Component
+@ConfigurationProperties(prefix = "app.ingesta")
+public class IngestaProperties {
+
+    // Capacidad de la cola en memoria de cada etapa (lo que no entra espera en la tabla)
+    private int capacidadCola = 200;
+
+    private Etapa extraccion = new Etapa(4, 3, 30);
+    private Etapa persistencia = new Etapa(2, 5, 10);
+
+    public int getCapacidadCola() {
+        return capacidadCola;
+    }
+
+    public void setCapacidadCola(int capacidadCola) {
+        this.capacidadCola = capacidadCola;
+    }
+
+    public Etapa getExtraccion() {
+        return extraccion;
+    }
+
+    public void setExtraccion(Etapa extraccion) {
+        this.extraccion = extraccion;
+    }
+
+    public Etapa getPersistencia() {
+        return persistencia;
+    }
+
+    public void setPersistencia(Etapa persistencia) {
+        this.persistencia = persistencia;
+    }
+
+    public static class Etapa {
+
+        private int workers;
+        private int maxIntentos;
+        private int backoffSegundos;
+
+        public Etapa() {}
+
+        public Etapa(int workers, int maxIntentos, int backoffSegundos) {
+            this.workers = workers;
+            this.maxIntentos = maxIntentos;
+            this.backoffSegundos = backoffSegundos;
+        }
+
+        public int getWorkers() {
+            return workers;
+        }
+
+        public void setWorkers(int workers) {
+            this.workers = workers;
+        }
+
+        public int getMaxIntentos() {
+            return maxIntentos;
+        }
+
+        public void setMaxIntentos(int maxIntentos) {
+            this.maxIntentos = maxIntentos;
+        }
+
+        public int getBackoffSegundos() {
+            return backoffSegundos;
+        }
+
+        public void setBackoffSegundos(int backoffSegundos) {
+            this.backoffSegundos = backoffSegundos;
+        }
+    }
+}
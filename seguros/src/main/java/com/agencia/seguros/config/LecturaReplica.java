@@ -0,0 +1,35 @@
+package com.agencia.seguros.config;
+
+import java.util.function.Supplier;
+
+/**
+ * Marca del hilo para leer de la réplica (ver {@link ReplicaDataSourceConfig}). Solo la usa
+ * ConsultaFacturasService, alrededor de su propia transacción: el resto de la aplicación,
+ * incluidas las lecturas read-only de los repositorios, queda siempre en la primaria.
+ * Sin réplica configurada la marca no tiene efecto.
+ */
+public final class LecturaReplica {
+
+    private static final ThreadLocal<Boolean> ACTIVA = ThreadLocal.withInitial(() -> false);
+
+    private LecturaReplica() {
+    }
+
+    static boolean activa() {
+        return ACTIVA.get();
+    }
+
+    /**
+     * Corre la lectura con la marca puesta. Tiene que envolver a la transacción (no al revés):
+     * la conexión se elige cuando la transacción la pide.
+     */
+    public static <T> T ejecutar(Supplier<T> lectura) {
+        boolean anterior = ACTIVA.get();
+        ACTIVA.set(true);
+        try {
+            return lectura.get();
+        } finally {
+            ACTIVA.set(anterior);
+        }
+    }
+}
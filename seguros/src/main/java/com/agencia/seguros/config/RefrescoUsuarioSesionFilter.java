@@ -0,0 +1,66 @@
+package com.agencia.seguros.config;
+
+import com.agencia.seguros.model.Usuario;
+import com.agencia.seguros.repository.UsuarioRepository;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+import org.springframework.security.web.context.SecurityContextRepository;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Relee el usuario de la sesión cuando un admin lo modificó (rol, sucursal, username)
+ * y guarda el principal nuevo en la sesión. Si el usuario ya no existe, cierra la sesión.
+ * En el caso normal es solo una comparación de versiones, sin ir a la base.
+ */
+public class RefrescoUsuarioSesionFilter extends OncePerRequestFilter {
+
+    private final UsuarioRepository usuarioRepository;
+    private final SesionesUsuarios sesionesUsuarios;
+    private final SecurityContextRepository securityContextRepository = new HttpSessionSecurityContextRepository();
+
+    public RefrescoUsuarioSesionFilter(UsuarioRepository usuarioRepository, SesionesUsuarios sesionesUsuarios) {
+        this.usuarioRepository = usuarioRepository;
+        this.sesionesUsuarios = sesionesUsuarios;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+
+        var auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth != null && auth.getPrincipal() instanceof UsuarioSesion actual) {
+            long version = sesionesUsuarios.version(actual.getId());
+
+            if (actual.getVersion() != version) {
+                Usuario usuario = usuarioRepository.findById(actual.getId()).orElse(null);
+
+                if (usuario == null) {
+                    SecurityContextHolder.clearContext();
+                    HttpSession sesion = request.getSession(false);
+                    if (sesion != null) {
+                        sesion.invalidate();
+                    }
+                } else {
+                    UsuarioSesion nuevo = new UsuarioSesion(usuario, version);
+                    nuevo.eraseCredentials();
+                    SecurityContext contexto = SecurityContextHolder.createEmptyContext();
+                    contexto.setAuthentication(UsernamePasswordAuthenticationToken.authenticated(
+                            nuevo, null, nuevo.getAuthorities()));
+                    SecurityContextHolder.setContext(contexto);
+                    securityContextRepository.saveContext(contexto, request, response);
+                }
+            }
+        }
+
+        chain.doFilter(request, response);
+    }
+}
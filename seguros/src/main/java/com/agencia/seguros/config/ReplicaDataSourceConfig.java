@@ -0,0 +1,86 @@
+package com.agencia.seguros.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Con app.datasource.replica.url configurada, las lecturas de las páginas (listado,
+ * historial, reportes: ConsultaFacturasService, marcadas con {@link LecturaReplica}) van a la
+ * réplica y todo lo demás (ingesta, checkpoints, sesiones, acciones sobre facturas,
+ * migraciones) a la primaria.
+ * <p>
+ * No se rutea por el flag read-only de la transacción: los repositorios de Spring Data leen
+ * en transacciones read-only, y la ingesta o los checkpoints leídos con atraso de la réplica
+ * reprocesarían trabajo ya hecho. Sin la propiedad, este bean no existe y Spring Boot arma
+ * el DataSource de siempre.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.replica.url")
+public class ReplicaDataSourceConfig {
+
+    @Value("${spring.datasource.url}")
+    private String url;
+
+    @Value("${spring.datasource.username}")
+    private String username;
+
+    @Value("${spring.datasource.password}")
+    private String password;
+
+    @Value("${app.datasource.replica.url}")
+    private String replicaUrl;
+
+    @Value("${app.datasource.replica.username:${spring.datasource.username}}")
+    private String replicaUsername;
+
+    @Value("${app.datasource.replica.password:${spring.datasource.password}}")
+    private String replicaPassword;
+
+    @Value("${app.datasource.replica.maximo-conexiones:10}")
+    private int replicaMaximoConexiones;
+
+    @Bean
+    public DataSource dataSource() {
+        HikariDataSource primaria = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+        primaria.setPoolName("primaria");
+
+        HikariDataSource replica = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(replicaUrl)
+                .username(replicaUsername)
+                .password(replicaPassword)
+                .build();
+        replica.setPoolName("replica");
+        replica.setReadOnly(true);
+        replica.setMaximumPoolSize(replicaMaximoConexiones);
+
+        RuteoReplica dataSource = new RuteoReplica();
+        dataSource.setTargetDataSources(Map.of(Base.PRIMARIA, primaria, Base.REPLICA, replica));
+        dataSource.setDefaultTargetDataSource(primaria);
+        dataSource.afterPropertiesSet();
+        return dataSource;
+    }
+
+    private enum Base { PRIMARIA, REPLICA }
+
+    private static final class RuteoReplica extends AbstractRoutingDataSource {
+
+        @Override
+        protected Object determineCurrentLookupKey() {
+            return LecturaReplica.activa() ? Base.REPLICA : Base.PRIMARIA;
+        }
+    }
+}
@@ -1,6 +1,5 @@
 package com.agencia.seguros.config;
 
-import com.agencia.seguros.model.Usuario;
 import com.agencia.seguros.repository.UsuarioRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
@@ -8,12 +7,12 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.Customizer;
-import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.context.SecurityContextHolderFilter;
 
 @Configuration
 @EnableMethodSecurity
@@ -22,6 +21,9 @@ public class SecurityConfig {
     @Autowired
     private UsuarioRepository usuarioRepository;
 
+    @Autowired
+    private SesionesUsuarios sesionesUsuarios;
+
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
 
@@ -44,7 +46,10 @@ public class SecurityConfig {
                         .logoutUrl("/logout")
                         .logoutSuccessUrl("/login?logout")
                         .permitAll()
-                );
+                )
+                // Sesiones de usuarios editados por un admin: releer rol y sucursal
+                .addFilterAfter(new RefrescoUsuarioSesionFilter(usuarioRepository, sesionesUsuarios),
+                        SecurityContextHolderFilter.class);
 
         return http.build();
     }
@@ -52,12 +57,9 @@ public class SecurityConfig {
 
     @Bean
     public UserDetailsService userDetailsService() {
+        // Password encriptado con BCrypt; id, rol y sucursal quedan en la sesión (UsuarioSesion)
         return username -> usuarioRepository.findByUsername(username)
-                .map((Usuario usuario) -> User.withUsername(usuario.getUsername())
-                        .password(usuario.getPassword())   // debe estar encriptado con BCrypt
-                        .roles(usuario.getRol())           // "ADMIN" o "PDV"
-                        .build()
-                )
+                .map(usuario -> new UsuarioSesion(usuario, sesionesUsuarios.version(usuario.getId())))
                 .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado: " + username));
     }
 
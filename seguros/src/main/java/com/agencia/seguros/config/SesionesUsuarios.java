@@ -0,0 +1,28 @@
+package com.agencia.seguros.config;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Versión de los datos de cada usuario para las sesiones abiertas. UsuarioController la
+ * incrementa al editar o eliminar un usuario; en el próximo request de esas sesiones
+ * {@link RefrescoUsuarioSesionFilter} ve que su {@link UsuarioSesion} quedó vieja y la
+ * vuelve a leer (una consulta por edición, no por request).
+ */
+@Component
+public class SesionesUsuarios {
+
+    private final Map<Long, Long> versiones = new ConcurrentHashMap<>();
+
+    public long version(Long usuarioId) {
+        return (usuarioId == null) ? 0 : versiones.getOrDefault(usuarioId, 0L);
+    }
+
+    public void modificado(Long usuarioId) {
+        if (usuarioId != null) {
+            versiones.merge(usuarioId, 1L, Long::sum);
+        }
+    }
+}
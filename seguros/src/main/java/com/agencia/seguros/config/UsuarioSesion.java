@@ -0,0 +1,42 @@
+package com.agencia.seguros.config;
+
+import com.agencia.seguros.model.Sucursal;
+import com.agencia.seguros.model.Usuario;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.List;
+
+/**
+ * Principal de la sesión: además de usuario y roles guarda id, rol y sucursal, que se
+ * leen una vez al hacer login. Las páginas los toman de acá en lugar de buscar el
+ * usuario en la base en cada request. Si un admin edita el usuario, la sesión se
+ * actualiza sola (ver {@link SesionesUsuarios}).
+ */
+public class UsuarioSesion extends User {
+
+    private final Long id;
+    private final String rol;
+    private final Sucursal sucursal;
+
+    // Versión de SesionesUsuarios con la que se armó; si cambia, hay que releer
+    private final long version;
+
+    public UsuarioSesion(Usuario usuario, long version) {
+        super(usuario.getUsername(), usuario.getPassword(),
+                List.of(new SimpleGrantedAuthority("ROLE_" + usuario.getRol())));   // "ADMIN" o "PDV"
+        this.id = usuario.getId();
+        this.rol = usuario.getRol();
+        this.sucursal = usuario.getSucursal();
+        this.version = version;
+    }
+
+    public Long getId() { return id; }
+    public String getRol() { return rol; }
+    public Sucursal getSucursal() { return sucursal; }
+    public long getVersion() { return version; }
+
+    public boolean isAdmin() {
+        return "ADMIN".equalsIgnoreCase(rol);
+    }
+}
@@ -1,23 +1,32 @@
 package com.agencia.seguros.controller;
 
+import com.agencia.seguros.config.UsuarioSesion;
 import com.agencia.seguros.model.*;
-import com.agencia.seguros.repository.AseguradoraRepository;
+import com.agencia.seguros.repository.FacturaListado;
 import com.agencia.seguros.repository.FacturaRepository;
 import com.agencia.seguros.repository.spec.FacturaSpecifications;
+import com.agencia.seguros.service.CatalogoAseguradoras;
+import com.agencia.seguros.service.ConsultaFacturasService;
+import com.agencia.seguros.service.ConteoFacturasService;
 import com.agencia.seguros.service.EmailEnvioFacturaService;
 import com.agencia.seguros.service.HistorialFacturaService;
+import com.agencia.seguros.service.IndiceBusquedaFacturas;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.core.io.UrlResource;
 import org.springframework.core.io.Resource;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -25,9 +34,9 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
-import com.agencia.seguros.repository.UsuarioRepository;
 import org.springframework.data.domain.Pageable;
 
 import java.nio.file.Files;
@@ -35,32 +44,51 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.Optional;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 @Profile("prod")
 @Controller
 public class FacturaController {
 
     private final FacturaRepository facturaRepository;
-    private final AseguradoraRepository aseguradoraRepository;
+    private final CatalogoAseguradoras catalogoAseguradoras;
     private final HistorialFacturaService historialFacturaService;
     private final EmailEnvioFacturaService emailEnvioFacturaService;
-    private final UsuarioRepository usuarioRepository;
+    private final ConteoFacturasService conteoFacturasService;
+    private final ConsultaFacturasService consultaFacturasService;
+    private final IndiceBusquedaFacturas indiceBusquedaFacturas;
 
+    private static final String PAGINACION_CURSOR = "cursor";
+
+    private static final int MAXIMO_SUGERENCIAS = 10;
+
+    // cursor (keyset, sin COUNT por página) o paginas (OFFSET + COUNT)
+    @Value("${app.facturas.paginacion:cursor}")
+    private String paginacionPorDefecto;
+
+    // Total aproximado en modo cursor (false = solo anterior/siguiente)
+    @Value("${app.facturas.total-aproximado:true}")
+    private boolean totalAproximado;
 
     @Value("${app.facturas.ruta-archivos}")
     private String rutaArchivos;
 
     public FacturaController(FacturaRepository facturaRepository,
-                             AseguradoraRepository aseguradoraRepository,
+                             CatalogoAseguradoras catalogoAseguradoras,
                              HistorialFacturaService historialFacturaService,
                              EmailEnvioFacturaService emailEnvioFacturaService,
-                             UsuarioRepository usuarioRepository) {
+                             ConteoFacturasService conteoFacturasService,
+                             ConsultaFacturasService consultaFacturasService,
+                             IndiceBusquedaFacturas indiceBusquedaFacturas) {
         this.facturaRepository = facturaRepository;
-        this.aseguradoraRepository = aseguradoraRepository;
+        this.catalogoAseguradoras = catalogoAseguradoras;
         this.historialFacturaService = historialFacturaService;
         this.emailEnvioFacturaService = emailEnvioFacturaService;
-        this.usuarioRepository = usuarioRepository;
+        this.conteoFacturasService = conteoFacturasService;
+        this.consultaFacturasService = consultaFacturasService;
+        this.indiceBusquedaFacturas = indiceBusquedaFacturas;
     }
     private String getUsuarioActual() {
         var auth = SecurityContextHolder.getContext().getAuthentication();
@@ -78,6 +106,11 @@ public class FacturaController {
             @RequestParam(required = false) String numeroOrden,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String paginacion,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate despuesFecha,
+            @RequestParam(required = false) Long despuesId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate antesFecha,
+            @RequestParam(required = false) Long antesId,
             Model model) {
 
         var auth = SecurityContextHolder.getContext().getAuthentication();
@@ -99,37 +132,39 @@ public class FacturaController {
         }
 
         // filtro sucursal (solo PDV)
-        if (!esAdmin && auth != null) {
-            var optUsuario = usuarioRepository.findByUsername(auth.getName());
-            if (optUsuario.isPresent() && optUsuario.get().getSucursal() != null) {
-                Sucursal sucursal = optUsuario.get().getSucursal();
-
-                // Mapeo simple por prefijo (esto depende del formato real de numeroFactura)
-                spec = spec.and(switch (sucursal) {
-                    case SANTA_FE -> FacturaSpecifications.numeroFacturaPrefijo("0104", "104");
-                    case RAFAELA -> FacturaSpecifications.numeroFacturaPrefijo("0109", "109");
-                    case RECONQUISTA -> FacturaSpecifications.numeroFacturaPrefijo("0105", "105");
-                });
-            }
+        Sucursal sucursal = esAdmin ? null : sucursalDelUsuario(auth);
+        if (sucursal != null) {
+            spec = spec.and(FacturaSpecifications.sucursalIgual(sucursal));
         }
 
-        Pageable pageable = PageRequest.of(
-                Math.max(page, 0),
-                Math.max(size, 1),
-                Sort.by(Sort.Direction.DESC, "fechaFactura").and(Sort.by(Sort.Direction.DESC, "id"))
-        );
+        String modo = (paginacion != null && !paginacion.isBlank()) ? paginacion : paginacionPorDefecto;
+
+        if (PAGINACION_CURSOR.equals(modo)) {
+            // Misma clave = mismos filtros = mismo total aproximado
+            String claveFiltros = String.join("|", String.valueOf(estado), String.valueOf(aseguradoraId),
+                    String.valueOf(numeroFactura), String.valueOf(numeroSiniestro), String.valueOf(numeroOrden),
+                    String.valueOf(filtroSoloVencidas && esAdmin), String.valueOf(sucursal));
+            listarPorCursor(spec, claveFiltros, Math.max(size, 1), despuesFecha, despuesId, antesFecha, antesId, model);
+        } else {
+            Pageable pageable = PageRequest.of(
+                    Math.max(page, 0),
+                    Math.max(size, 1),
+                    Sort.by(Sort.Direction.DESC, "fechaFactura").and(Sort.by(Sort.Direction.DESC, "id"))
+            );
 
-        Page<Factura> facturasPage = facturaRepository.findAll(spec, pageable);
+            Page<FacturaListado> facturasPage = consultaFacturasService.listar(spec, pageable);
 
-        model.addAttribute("facturasPage", facturasPage);
-        model.addAttribute("facturas", facturasPage.getContent());
-        model.addAttribute("page", facturasPage.getNumber());
-        model.addAttribute("size", facturasPage.getSize());
+            model.addAttribute("facturasPage", facturasPage);
+            model.addAttribute("facturas", facturasPage.getContent());
+            model.addAttribute("page", facturasPage.getNumber());
+            model.addAttribute("size", facturasPage.getSize());
+        }
+        model.addAttribute("paginacion", modo);
 
 
         // filtros para repintar
         model.addAttribute("estados", EstadoFactura.values());
-        model.addAttribute("aseguradoras", aseguradoraRepository.findAll(Sort.by("nombre")));
+        model.addAttribute("aseguradoras", catalogoAseguradoras.listarOrdenadas());
         model.addAttribute("estadoSeleccionado", estado);
         model.addAttribute("aseguradoraSeleccionada", aseguradoraId);
         model.addAttribute("hoy", LocalDate.now());
@@ -141,6 +176,33 @@ public class FacturaController {
 
         return "facturas";
     }
+
+    /**
+     * Sugerencias para los campos de búsqueda: números que empiezan con q (un PDV solo ve los de su sucursal).
+     */
+    @GetMapping("/facturas/autocompletar")
+    @ResponseBody
+    public List<String> autocompletar(@RequestParam String campo,
+                                      @RequestParam(required = false) String q) {
+        IndiceBusquedaFacturas.Campo c;
+        try {
+            c = IndiceBusquedaFacturas.Campo.valueOf(campo.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return List.of();
+        }
+
+        var auth = SecurityContextHolder.getContext().getAuthentication();
+        boolean esAdmin = auth != null &&
+                auth.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
+
+        return indiceBusquedaFacturas.autocompletar(c, q, esAdmin ? null : sucursalDelUsuario(auth), MAXIMO_SUGERENCIAS);
+    }
+
+    // La sucursal viaja en el principal de la sesión (UsuarioSesion)
+    private Sucursal sucursalDelUsuario(Authentication auth) {
+        return (auth != null && auth.getPrincipal() instanceof UsuarioSesion u) ? u.getSucursal() : null;
+    }
+
     @PostMapping("/facturas/{id}/asignar-aseguradora")
     public String asignarAseguradora(@PathVariable Long id,
                                      @RequestParam("aseguradoraId") Long aseguradoraId,
@@ -149,7 +211,7 @@ public class FacturaController {
         Factura factura = facturaRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Factura no encontrada"));
 
-        Aseguradora aseguradora = aseguradoraRepository.findById(aseguradoraId)
+        Aseguradora aseguradora = catalogoAseguradoras.buscarPorId(aseguradoraId)
                 .orElseThrow(() -> new RuntimeException("Aseguradora no encontrada"));
 
         factura.setAseguradora(aseguradora);
@@ -307,14 +369,14 @@ public class FacturaController {
     //Ver historial de una factura
     @GetMapping("/facturas/{id}/historial")
     public String verHistorial(@PathVariable Long id, Model model, RedirectAttributes redirectAttributes) {
-        Optional<Factura> optFactura = facturaRepository.findById(id);
-        if (optFactura.isEmpty()) {
+        var optHistorial = consultaFacturasService.historial(id);
+        if (optHistorial.isEmpty()) {
             redirectAttributes.addFlashAttribute("error", "Factura no encontrada.");
             return "redirect:/facturas";
         }
 
-        model.addAttribute("factura", optFactura.get());
-        model.addAttribute("historial", historialFacturaService.listarPorFactura(id));
+        model.addAttribute("factura", optHistorial.get().factura());
+        model.addAttribute("historial", optHistorial.get().movimientos());
 
         return "facturas-historial"; // plantilla aparte, por ejemplo
     }
@@ -428,24 +490,56 @@ public class FacturaController {
         return estado == EstadoFactura.ENVIADA_A_SEGURO
                 || estado == EstadoFactura.CERRADA_MANUALMENTE;
     }
-    private boolean perteneceASucursal(String numeroFactura, Sucursal sucursal) {
-        if (numeroFactura == null || sucursal == null) {
-            return false;
+    /**
+     * Paginación por cursor (keyset): en lugar de OFFSET se filtra por la (fechaFactura, id)
+     * de la última fila mostrada, así una página profunda cuesta lo mismo que la primera.
+     * No hace COUNT por página: se pide una fila de más para saber si hay siguiente y el
+     * total que se muestra es aproximado (ConteoFacturasService).
+     */
+    private void listarPorCursor(Specification<Factura> spec,
+                                 String claveFiltros,
+                                 int size,
+                                 LocalDate despuesFecha,
+                                 Long despuesId,
+                                 LocalDate antesFecha,
+                                 Long antesId,
+                                 Model model) {
+
+        boolean haciaAtras = antesId != null;
+        Specification<Factura> specPagina = haciaAtras
+                ? andIfNotNull(spec, FacturaSpecifications.antesDe(antesFecha, antesId))
+                : andIfNotNull(spec, FacturaSpecifications.despuesDe(despuesFecha, despuesId));
+
+        Sort.Direction direccion = haciaAtras ? Sort.Direction.ASC : Sort.Direction.DESC;
+        Sort orden = Sort.by(direccion, "fechaFactura").and(Sort.by(direccion, "id"));
+
+        List<FacturaListado> filas = new ArrayList<>(consultaFacturasService.listar(specPagina, orden, size + 1));
+
+        boolean hayMas = filas.size() > size;
+        if (hayMas) {
+            filas = new ArrayList<>(filas.subList(0, size));
         }
-
-        // Dejar solo dígitos: "0104-00062226" -> "010400062226"
-        String soloDigitos = numeroFactura.replaceAll("\\D", "");
-        if (soloDigitos.length() < 3) {
-            return false;
+        if (haciaAtras) {
+            Collections.reverse(filas);
         }
 
-        // Opciones de prefijo por sucursal
-        return switch (sucursal) {
-            case SANTA_FE -> soloDigitos.startsWith("104")  || soloDigitos.startsWith("0104");
-            case RAFAELA  -> soloDigitos.startsWith("109")  || soloDigitos.startsWith("0109");
-            case RECONQUISTA -> soloDigitos.startsWith("105") || soloDigitos.startsWith("0105");
-        };
+        // Hacia atrás siempre hay siguiente (la página de la que se vino)
+        boolean haySiguiente = haciaAtras || hayMas;
+        boolean hayAnterior = haciaAtras ? hayMas : despuesId != null;
+
+        Slice<FacturaListado> facturasSlice = new SliceImpl<>(filas,
+                PageRequest.of(0, size, Sort.by(Sort.Direction.DESC, "fechaFactura").and(Sort.by(Sort.Direction.DESC, "id"))),
+                haySiguiente);
+
+        model.addAttribute("facturasSlice", facturasSlice);
+        model.addAttribute("facturas", filas);
+        model.addAttribute("size", size);
+        model.addAttribute("hayAnterior", hayAnterior && !filas.isEmpty());
+        model.addAttribute("primera", filas.isEmpty() ? null : filas.get(0));
+        model.addAttribute("ultima", filas.isEmpty() ? null : filas.get(filas.size() - 1));
+        model.addAttribute("totalAproximado", totalAproximado ? conteoFacturasService.contar(claveFiltros, spec) : null);
     }
+
     private Specification<Factura> andIfNotNull(
             Specification<Factura> base,
             Specification<Factura> extra) {
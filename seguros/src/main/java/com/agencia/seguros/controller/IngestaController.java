@@ -0,0 +1,85 @@
+package com.agencia.seguros.controller;
+
+import com.agencia.seguros.model.CorreoFallido;
+import com.agencia.seguros.model.EtapaIngesta;
+import com.agencia.seguros.model.IngestaAdjunto;
+import com.agencia.seguros.service.IngestaPipeline;
+import com.agencia.seguros.service.MailReaderService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Lo que la ingesta no pudo resolver sola (admin): adjuntos en DEAD_LETTER o CUARENTENA y
+ * correos que fallaron al sincronizar la carpeta. Se listan y se reintentan uno a uno.
+ */
+@RestController
+@RequestMapping("/admin/ingesta")
+@PreAuthorize("hasRole('ADMIN')")
+public class IngestaController {
+
+    private static final int TAMANIO_MAXIMO = 200;
+
+    private final IngestaPipeline ingestaPipeline;
+    private final MailReaderService mailReaderService;
+
+    public IngestaController(IngestaPipeline ingestaPipeline, MailReaderService mailReaderService) {
+        this.ingestaPipeline = ingestaPipeline;
+        this.mailReaderService = mailReaderService;
+    }
+
+    public record Resultado(boolean reintentado, String detalle) {
+    }
+
+    @GetMapping("/adjuntos")
+    public List<IngestaAdjunto> adjuntos(@RequestParam(required = false) EtapaIngesta etapa,
+                                         @RequestParam(defaultValue = "0") int pagina,
+                                         @RequestParam(defaultValue = "50") int tamanio) {
+        return ingestaPipeline.listarFallidos(etapa, Math.max(pagina, 0), acotar(tamanio));
+    }
+
+    @PostMapping("/adjuntos/{id}/reintentar")
+    public ResponseEntity<Resultado> reintentarAdjunto(@PathVariable Long id) {
+        if (!ingestaPipeline.reintentar(id)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(new Resultado(false, "El adjunto " + id + " no existe o no está en DEAD_LETTER/CUARENTENA"));
+        }
+        return ResponseEntity.accepted().body(new Resultado(true, "Adjunto " + id + " de vuelta en extracción"));
+    }
+
+    @GetMapping("/correos")
+    public List<CorreoFallido> correos(@RequestParam(defaultValue = "0") int pagina,
+                                       @RequestParam(defaultValue = "50") int tamanio) {
+        return mailReaderService.listarCorreosFallidos(Math.max(pagina, 0), acotar(tamanio));
+    }
+
+    @PostMapping("/correos/{id}/reintentar")
+    public ResponseEntity<Resultado> reintentarCorreo(@PathVariable Long id) {
+        try {
+            if (!mailReaderService.reintentarCorreo(id)) {
+                return ResponseEntity.status(HttpStatus.GONE)
+                        .body(new Resultado(false, "El correo ya no está en la carpeta (o cambió el UIDVALIDITY)"));
+            }
+            return ResponseEntity.ok(new Resultado(true, "Correo procesado y en spool"));
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new Resultado(false, "No hay un correo fallido con id " + id));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_GATEWAY)
+                    .body(new Resultado(false, "Falló otra vez: " + e.getMessage()));
+        }
+    }
+
+    private static int acotar(int tamanio) {
+        return Math.min(Math.max(tamanio, 1), TAMANIO_MAXIMO);
+    }
+}
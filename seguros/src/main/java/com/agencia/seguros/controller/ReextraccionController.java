@@ -0,0 +1,43 @@
+package com.agencia.seguros.controller;
+
+import com.agencia.seguros.service.ReextraccionService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Control de la re-extracción de facturas (admin): iniciar/retomar, detener y consultar avance.
+ */
+@RestController
+@RequestMapping("/admin/reextraccion")
+@PreAuthorize("hasRole('ADMIN')")
+public class ReextraccionController {
+
+    private final ReextraccionService reextraccionService;
+
+    public ReextraccionController(ReextraccionService reextraccionService) {
+        this.reextraccionService = reextraccionService;
+    }
+
+    @GetMapping
+    public ReextraccionService.Estado estado() {
+        return reextraccionService.estado();
+    }
+
+    @PostMapping("/iniciar")
+    public ResponseEntity<ReextraccionService.Estado> iniciar() {
+        boolean iniciada = reextraccionService.iniciar();
+        return ResponseEntity.status(iniciada ? HttpStatus.ACCEPTED : HttpStatus.CONFLICT)
+                .body(reextraccionService.estado());
+    }
+
+    @PostMapping("/detener")
+    public ReextraccionService.Estado detener() {
+        reextraccionService.detener();
+        return reextraccionService.estado();
+    }
+}
@@ -1,6 +1,6 @@
 package com.agencia.seguros.controller;
 
-import com.agencia.seguros.repository.FacturaRepository;
+import com.agencia.seguros.service.ConsultaFacturasService;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -15,10 +15,10 @@ import java.util.List;
 @PreAuthorize("hasRole('ADMIN')") // después se puede abrir a PDV
 public class ReporteController {
 
-    private final FacturaRepository facturaRepository;
+    private final ConsultaFacturasService consultaFacturasService;
 
-    public ReporteController(FacturaRepository facturaRepository) {
-        this.facturaRepository = facturaRepository;
+    public ReporteController(ConsultaFacturasService consultaFacturasService) {
+        this.consultaFacturasService = consultaFacturasService;
     }
 
     @GetMapping("/reportes")
@@ -33,11 +33,7 @@ public class ReporteController {
         LocalDate d = (desde == null || desde.isBlank()) ? hoy.minusDays(30) : LocalDate.parse(desde);
         LocalDate h = (hasta == null || hasta.isBlank()) ? hoy : LocalDate.parse(hasta);
 
-        List<Object[]> rows = switch (agrupacion.toUpperCase()) {
-            case "SEMANA" -> facturaRepository.contarPorSemana(d, h);
-            case "MES" -> facturaRepository.contarPorMes(d, h);
-            default -> facturaRepository.contarPorDia(d, h);
-        };
+        List<Object[]> rows = consultaFacturasService.contarPorPeriodo(agrupacion, d, h);
 
         List<String> labels = new ArrayList<>();
         List<Long> values = new ArrayList<>();
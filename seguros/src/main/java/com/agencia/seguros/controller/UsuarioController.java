@@ -1,5 +1,6 @@
 package com.agencia.seguros.controller;
 
+import com.agencia.seguros.config.SesionesUsuarios;
 import com.agencia.seguros.model.Sucursal;
 import com.agencia.seguros.model.Usuario;
 import com.agencia.seguros.repository.UsuarioRepository;
@@ -19,10 +20,13 @@ public class UsuarioController {
 
     private final UsuarioRepository usuarioRepository;
     private final PasswordEncoder passwordEncoder;
+    private final SesionesUsuarios sesionesUsuarios;
 
-    public UsuarioController(UsuarioRepository usuarioRepository, PasswordEncoder passwordEncoder) {
+    public UsuarioController(UsuarioRepository usuarioRepository, PasswordEncoder passwordEncoder,
+                             SesionesUsuarios sesionesUsuarios) {
         this.usuarioRepository = usuarioRepository;
         this.passwordEncoder = passwordEncoder;
+        this.sesionesUsuarios = sesionesUsuarios;
     }
 
     @GetMapping
@@ -113,6 +117,10 @@ public class UsuarioController {
         }
 
         usuarioRepository.save(usuario);
+        if (!esNuevo) {
+            // Las sesiones abiertas de ese usuario releen rol y sucursal
+            sesionesUsuarios.modificado(usuario.getId());
+        }
         ra.addFlashAttribute("mensaje", "Usuario guardado correctamente.");
         return "redirect:/usuarios";
     }
@@ -139,6 +147,7 @@ public class UsuarioController {
             return "redirect:/usuarios";
         }
         usuarioRepository.deleteById(id);
+        sesionesUsuarios.modificado(id);
         ra.addFlashAttribute("mensaje", "Usuario eliminado.");
         return "redirect:/usuarios";
     }
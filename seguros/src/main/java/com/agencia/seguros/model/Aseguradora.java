@@ -1,10 +1,11 @@
 package com.agencia.seguros.model;
 
+import com.agencia.seguros.service.AseguradoraListener;
 import jakarta.persistence.*;
 
-
 @Entity
 @Table(name = "aseguradoras")
+@EntityListeners(AseguradoraListener.class)
 public class Aseguradora {
 
     @Id
@@ -38,6 +39,6 @@ public class Aseguradora {
         this.email = email;
     }
 
-    @Column(nullable = false)
+    // Hay aseguradoras cargadas sin email
     private String email;
 }
@@ -0,0 +1,110 @@
+package com.agencia.seguros.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Resultado de extracción guardado por contenido del PDF (SHA-256) y perfil de extracción.
+ * <p>
+ * Los campos valen para la versión de reglas con que se obtuvieron; el texto (comprimido)
+ * no depende de las reglas, así que con otra versión se re-parsea sin volver a abrir el PDF.
+ * ultimo_acceso ordena el desalojo cuando el cache supera su tamaño máximo.
+ */
+@Entity
+@Table(name = "cache_extracciones",
+        uniqueConstraints = @UniqueConstraint(name = "uk_cache_extraccion_hash_perfil", columnNames = {"hash_contenido", "perfil"}),
+        indexes = @Index(name = "idx_cache_extraccion_ultimo_acceso", columnList = "ultimo_acceso"))
+public class CacheExtraccion {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "hash_contenido", nullable = false, length = 64)
+    private String hashContenido;
+
+    @Column(nullable = false, length = 50)
+    private String perfil;
+
+    @Column(name = "version_reglas", nullable = false, length = 20)
+    private String versionReglas;
+
+    @Column(name = "fecha_factura")
+    private LocalDate fechaFactura;
+
+    @Column(name = "numero_factura")
+    private String numeroFactura;
+
+    @Column(name = "numero_siniestro")
+    private String numeroSiniestro;
+
+    @Column(name = "numero_orden")
+    private String numeroOrden;
+
+    private String aseguradora;
+
+    // Texto leído del PDF, comprimido (ver CacheExtraccionService)
+    @Lob
+    @Column(nullable = false, length = 16777215)
+    private byte[] textos;
+
+    // Bytes aproximados de la fila, para el tope de tamaño del cache
+    @Column(nullable = false)
+    private int tamanio;
+
+    @Column(name = "fecha_creacion", nullable = false)
+    private LocalDateTime fechaCreacion;
+
+    @Column(name = "ultimo_acceso", nullable = false)
+    private LocalDateTime ultimoAcceso;
+
+    public CacheExtraccion() {}
+
+    public CacheExtraccion(String hashContenido, String perfil) {
+        this.hashContenido = hashContenido;
+        this.perfil = perfil;
+        this.fechaCreacion = LocalDateTime.now();
+    }
+
+    // ===== Getters y setters =====
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getHashContenido() { return hashContenido; }
+    public void setHashContenido(String hashContenido) { this.hashContenido = hashContenido; }
+
+    public String getPerfil() { return perfil; }
+    public void setPerfil(String perfil) { this.perfil = perfil; }
+
+    public String getVersionReglas() { return versionReglas; }
+    public void setVersionReglas(String versionReglas) { this.versionReglas = versionReglas; }
+
+    public LocalDate getFechaFactura() { return fechaFactura; }
+    public void setFechaFactura(LocalDate fechaFactura) { this.fechaFactura = fechaFactura; }
+
+    public String getNumeroFactura() { return numeroFactura; }
+    public void setNumeroFactura(String numeroFactura) { this.numeroFactura = numeroFactura; }
+
+    public String getNumeroSiniestro() { return numeroSiniestro; }
+    public void setNumeroSiniestro(String numeroSiniestro) { this.numeroSiniestro = numeroSiniestro; }
+
+    public String getNumeroOrden() { return numeroOrden; }
+    public void setNumeroOrden(String numeroOrden) { this.numeroOrden = numeroOrden; }
+
+    public String getAseguradora() { return aseguradora; }
+    public void setAseguradora(String aseguradora) { this.aseguradora = aseguradora; }
+
+    public byte[] getTextos() { return textos; }
+    public void setTextos(byte[] textos) { this.textos = textos; }
+
+    public int getTamanio() { return tamanio; }
+    public void setTamanio(int tamanio) { this.tamanio = tamanio; }
+
+    public LocalDateTime getFechaCreacion() { return fechaCreacion; }
+    public void setFechaCreacion(LocalDateTime fechaCreacion) { this.fechaCreacion = fechaCreacion; }
+
+    public LocalDateTime getUltimoAcceso() { return ultimoAcceso; }
+    public void setUltimoAcceso(LocalDateTime ultimoAcceso) { this.ultimoAcceso = ultimoAcceso; }
+}
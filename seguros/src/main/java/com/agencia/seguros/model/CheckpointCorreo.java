@@ -0,0 +1,52 @@
+package com.agencia.seguros.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Último UID procesado por carpeta IMAP. Si el UIDVALIDITY del servidor cambia,
+ * los UID dejan de ser comparables y se vuelve a escanear la carpeta completa.
+ */
+@Entity
+@Table(name = "checkpoints_correo")
+public class CheckpointCorreo {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, unique = true)
+    private String carpeta;
+
+    @Column(name = "uid_validity")
+    private Long uidValidity;
+
+    @Column(name = "ultimo_uid", nullable = false)
+    private long ultimoUid;
+
+    @Column(name = "fecha_actualizacion")
+    private LocalDateTime fechaActualizacion;
+
+    public CheckpointCorreo() {}
+
+    public CheckpointCorreo(String carpeta) {
+        this.carpeta = carpeta;
+    }
+
+    // ===== Getters y setters =====
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getCarpeta() { return carpeta; }
+    public void setCarpeta(String carpeta) { this.carpeta = carpeta; }
+
+    public Long getUidValidity() { return uidValidity; }
+    public void setUidValidity(Long uidValidity) { this.uidValidity = uidValidity; }
+
+    public long getUltimoUid() { return ultimoUid; }
+    public void setUltimoUid(long ultimoUid) { this.ultimoUid = ultimoUid; }
+
+    public LocalDateTime getFechaActualizacion() { return fechaActualizacion; }
+    public void setFechaActualizacion(LocalDateTime fechaActualizacion) { this.fechaActualizacion = fechaActualizacion; }
+}
@@ -0,0 +1,51 @@
+package com.agencia.seguros.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Avance de una importación masiva de PDFs por directorio. Los archivos se recorren
+ * en orden de ruta, así que alcanza con el último archivo cuyo lote quedó confirmado.
+ */
+@Entity
+@Table(name = "checkpoints_importacion")
+public class CheckpointImportacion {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, unique = true, length = 500)
+    private String directorio;
+
+    @Column(name = "ultimo_archivo", length = 1000)
+    private String ultimoArchivo;
+
+    private long importados;
+
+    @Column(name = "fecha_actualizacion")
+    private LocalDateTime fechaActualizacion;
+
+    public CheckpointImportacion() {}
+
+    public CheckpointImportacion(String directorio) {
+        this.directorio = directorio;
+    }
+
+    // ===== Getters y setters =====
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getDirectorio() { return directorio; }
+    public void setDirectorio(String directorio) { this.directorio = directorio; }
+
+    public String getUltimoArchivo() { return ultimoArchivo; }
+    public void setUltimoArchivo(String ultimoArchivo) { this.ultimoArchivo = ultimoArchivo; }
+
+    public long getImportados() { return importados; }
+    public void setImportados(long importados) { this.importados = importados; }
+
+    public LocalDateTime getFechaActualizacion() { return fechaActualizacion; }
+    public void setFechaActualizacion(LocalDateTime fechaActualizacion) { this.fechaActualizacion = fechaActualizacion; }
+}
@@ -0,0 +1,71 @@
+package com.agencia.seguros.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Avance de la re-extracción de facturas existentes: último id revisado (recorrido por
+ * keyset) y contadores de la corrida. Al terminar una pasada completa ultimoId vuelve a 0.
+ */
+@Entity
+@Table(name = "checkpoints_reextraccion")
+public class CheckpointReextraccion {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, unique = true)
+    private String nombre;
+
+    @Column(name = "ultimo_id", nullable = false)
+    private long ultimoId;
+
+    private long revisadas;
+    private long actualizadas;
+    private long errores;
+
+    @Column(name = "fecha_inicio")
+    private LocalDateTime fechaInicio;
+
+    @Column(name = "fecha_fin")
+    private LocalDateTime fechaFin;
+
+    @Column(name = "fecha_actualizacion")
+    private LocalDateTime fechaActualizacion;
+
+    public CheckpointReextraccion() {}
+
+    public CheckpointReextraccion(String nombre) {
+        this.nombre = nombre;
+    }
+
+    // ===== Getters y setters =====
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getNombre() { return nombre; }
+    public void setNombre(String nombre) { this.nombre = nombre; }
+
+    public long getUltimoId() { return ultimoId; }
+    public void setUltimoId(long ultimoId) { this.ultimoId = ultimoId; }
+
+    public long getRevisadas() { return revisadas; }
+    public void setRevisadas(long revisadas) { this.revisadas = revisadas; }
+
+    public long getActualizadas() { return actualizadas; }
+    public void setActualizadas(long actualizadas) { this.actualizadas = actualizadas; }
+
+    public long getErrores() { return errores; }
+    public void setErrores(long errores) { this.errores = errores; }
+
+    public LocalDateTime getFechaInicio() { return fechaInicio; }
+    public void setFechaInicio(LocalDateTime fechaInicio) { this.fechaInicio = fechaInicio; }
+
+    public LocalDateTime getFechaFin() { return fechaFin; }
+    public void setFechaFin(LocalDateTime fechaFin) { this.fechaFin = fechaFin; }
+
+    public LocalDateTime getFechaActualizacion() { return fechaActualizacion; }
+    public void setFechaActualizacion(LocalDateTime fechaActualizacion) { this.fechaActualizacion = fechaActualizacion; }
+}
@@ -0,0 +1,83 @@
+package com.agencia.seguros.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Correo que falló al sincronizar la carpeta, identificado por UIDVALIDITY + UID.
+ * Mientras tiene intentos disponibles retiene el checkpoint para reintentarse; agotados
+ * queda en DEAD_LETTER y el checkpoint lo pasa.
+ */
+@Entity
+@Table(name = "correos_fallidos",
+        uniqueConstraints = @UniqueConstraint(name = "uk_correos_fallidos_uid", columnNames = {"carpeta", "uid_validity", "uid"}))
+public class CorreoFallido {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String carpeta;
+
+    @Column(name = "uid_validity", nullable = false)
+    private long uidValidity;
+
+    @Column(nullable = false)
+    private long uid;
+
+    @Column(name = "message_id")
+    private String messageId;
+
+    private String asunto;
+    private String remitente;
+
+    @Column(nullable = false)
+    private int intentos;
+
+    @Column(name = "ultimo_error", length = 1000)
+    private String ultimoError;
+
+    @Column(name = "fecha_actualizacion")
+    private LocalDateTime fechaActualizacion;
+
+    public CorreoFallido() {}
+
+    public CorreoFallido(String carpeta, long uidValidity, long uid) {
+        this.carpeta = carpeta;
+        this.uidValidity = uidValidity;
+        this.uid = uid;
+    }
+
+    // ===== Getters y setters =====
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getCarpeta() { return carpeta; }
+    public void setCarpeta(String carpeta) { this.carpeta = carpeta; }
+
+    public long getUidValidity() { return uidValidity; }
+    public void setUidValidity(long uidValidity) { this.uidValidity = uidValidity; }
+
+    public long getUid() { return uid; }
+    public void setUid(long uid) { this.uid = uid; }
+
+    public String getMessageId() { return messageId; }
+    public void setMessageId(String messageId) { this.messageId = messageId; }
+
+    public String getAsunto() { return asunto; }
+    public void setAsunto(String asunto) { this.asunto = asunto; }
+
+    public String getRemitente() { return remitente; }
+    public void setRemitente(String remitente) { this.remitente = remitente; }
+
+    public int getIntentos() { return intentos; }
+    public void setIntentos(int intentos) { this.intentos = intentos; }
+
+    public String getUltimoError() { return ultimoError; }
+    public void setUltimoError(String ultimoError) { this.ultimoError = ultimoError; }
+
+    public LocalDateTime getFechaActualizacion() { return fechaActualizacion; }
+    public void setFechaActualizacion(LocalDateTime fechaActualizacion) { this.fechaActualizacion = fechaActualizacion; }
+}
@@ -0,0 +1,10 @@
+package com.agencia.seguros.model;
+
+public enum EtapaIngesta {
+    PENDIENTE_EXTRACCION,
+    PENDIENTE_PERSISTENCIA,
+    COMPLETADA,
+    DEAD_LETTER,
+    // PDF que excede los límites de extracción: no se reintenta
+    CUARENTENA
+}
@@ -1,11 +1,27 @@
 package com.agencia.seguros.model;
 
+import com.agencia.seguros.service.FacturaListener;
 import jakarta.persistence.*;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "facturas")
+@Table(name = "facturas", indexes = {
+        @Index(name = "idx_facturas_hash_contenido", columnList = "hash_contenido"),
+        // Orden del listado y paginación por cursor (fecha_factura DESC, id DESC)
+        @Index(name = "idx_facturas_fecha_id", columnList = "fecha_factura, id"),
+        // Listado de un PDV: igualdad por sucursal + mismo orden
+        @Index(name = "idx_facturas_sucursal_fecha_id", columnList = "sucursal, fecha_factura, id"),
+        // Filtros por estado, aseguradora y vencidas (fecha_envio IS NULL), mismo orden
+        @Index(name = "idx_facturas_estado_fecha_id", columnList = "estado, fecha_factura, id"),
+        @Index(name = "idx_facturas_aseguradora_fecha_id", columnList = "aseguradora_id, fecha_factura, id"),
+        @Index(name = "idx_facturas_envio_fecha_id", columnList = "fecha_envio, fecha_factura, id"),
+        // Autocompletado por prefijo (LIKE 'texto%'); "contiene" usa facturas_trigramas
+        @Index(name = "idx_facturas_numero_factura", columnList = "numero_factura"),
+        @Index(name = "idx_facturas_numero_siniestro", columnList = "numero_siniestro"),
+        @Index(name = "idx_facturas_numero_orden", columnList = "numero_orden")
+})
+@EntityListeners(FacturaListener.class)
 public class Factura {
 
     @Id
@@ -30,6 +46,10 @@ public class Factura {
 
     private String rutaArchivo;
 
+    // SHA-256 del PDF guardado en nombreArchivo (almacén direccionado por contenido)
+    @Column(name = "hash_contenido", length = 64)
+    private String hashContenido;
+
     @Column(name = "fecha_recepcion")
     private LocalDateTime fechaRecepcion;
 
@@ -48,10 +68,19 @@ public class Factura {
     @Column(name = "numero_orden")
     private String numeroOrden;
 
+    // Derivada de numeroFactura al guardar (Sucursal.desdeNumeroFactura)
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private Sucursal sucursal;
+
     // ✅ NUEVO: identificador único del mail (Message-ID)
     @Column(name = "message_id", unique = true, length = 255)
     private String messageId;
 
+    // Números con los que está armado el índice de búsqueda (ver FacturaListener)
+    @Transient
+    private String numerosIndexados;
+
     public Factura() {}
 
     // ===== Getters y setters =====
@@ -83,6 +112,9 @@ public class Factura {
     public String getRutaArchivo() { return rutaArchivo; }
     public void setRutaArchivo(String rutaArchivo) { this.rutaArchivo = rutaArchivo; }
 
+    public String getHashContenido() { return hashContenido; }
+    public void setHashContenido(String hashContenido) { this.hashContenido = hashContenido; }
+
     public LocalDateTime getFechaRecepcion() { return fechaRecepcion; }
     public void setFechaRecepcion(LocalDateTime fechaRecepcion) { this.fechaRecepcion = fechaRecepcion; }
 
@@ -101,10 +133,37 @@ public class Factura {
     public String getNumeroOrden() { return numeroOrden; }
     public void setNumeroOrden(String numeroOrden) { this.numeroOrden = numeroOrden; }
 
+    public Sucursal getSucursal() { return sucursal; }
+    public void setSucursal(Sucursal sucursal) { this.sucursal = sucursal; }
+
     // NUEVO
     public String getMessageId() { return messageId; }
     public void setMessageId(String messageId) { this.messageId = messageId; }
 
+    // Al crear o corregir el número se recalcula la sucursal
+    @PrePersist
+    @PreUpdate
+    void derivarSucursal() {
+        this.sucursal = Sucursal.desdeNumeroFactura(numeroFactura);
+    }
+
+    @PostLoad
+    void recordarNumerosIndexados() {
+        this.numerosIndexados = claveNumeros();
+    }
+
+    public boolean numerosCambiaron() {
+        return !claveNumeros().equals(numerosIndexados);
+    }
+
+    public void marcarNumerosIndexados() {
+        this.numerosIndexados = claveNumeros();
+    }
+
+    private String claveNumeros() {
+        return numeroFactura + "|" + numeroSiniestro + "|" + numeroOrden;
+    }
+
     @Transient
     public boolean isVencida() {
         if (fechaFactura == null) return false;
@@ -0,0 +1,153 @@
+package com.agencia.seguros.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Adjunto recibido por correo en tránsito por el pipeline de ingesta
+ * (spool -> extracción -> persistencia). Cada etapa lee y avanza esta fila,
+ * así un reinicio o un fallo no pierde trabajo ni deja archivos huérfanos.
+ */
+@Entity
+@Table(name = "ingesta_adjuntos", indexes = {
+        @Index(name = "idx_ingesta_etapa_proximo", columnList = "etapa, proximo_intento"),
+        @Index(name = "idx_ingesta_hash_contenido", columnList = "hash_contenido")
+})
+public class IngestaAdjunto {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 30)
+    private EtapaIngesta etapa;
+
+    // ===== datos del correo (spool) =====
+
+    @Column(name = "message_id", length = 255)
+    private String messageId;
+
+    private String asunto;
+    private String remitente;
+
+    @Column(name = "nombre_archivo", nullable = false)
+    private String nombreArchivo;
+
+    // Nombre del adjunto en el correo (suele traer el número de factura)
+    @Column(name = "nombre_original")
+    private String nombreOriginal;
+
+    // SHA-256 del PDF: el mismo contenido se extrae una sola vez
+    @Column(name = "hash_contenido", length = 64)
+    private String hashContenido;
+
+    @Column(name = "fecha_recepcion")
+    private LocalDateTime fechaRecepcion;
+
+    // ===== resultado de la extracción =====
+
+    @Column(name = "fecha_factura")
+    private LocalDate fechaFactura;
+
+    @Column(name = "numero_factura")
+    private String numeroFactura;
+
+    @Column(name = "numero_siniestro")
+    private String numeroSiniestro;
+
+    @Column(name = "numero_orden")
+    private String numeroOrden;
+
+    @Column(name = "aseguradora_detectada")
+    private String aseguradoraDetectada;
+
+    // ===== control de reintentos =====
+
+    private int intentos;
+
+    @Column(name = "ultimo_error", length = 1000)
+    private String ultimoError;
+
+    @Column(name = "proximo_intento")
+    private LocalDateTime proximoIntento;
+
+    @Column(name = "factura_id")
+    private Long facturaId;
+
+    @Column(name = "fecha_actualizacion")
+    private LocalDateTime fechaActualizacion;
+
+    public IngestaAdjunto() {}
+
+    // ===== Getters y setters =====
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public EtapaIngesta getEtapa() { return etapa; }
+    public void setEtapa(EtapaIngesta etapa) { this.etapa = etapa; }
+
+    public String getMessageId() { return messageId; }
+    public void setMessageId(String messageId) { this.messageId = messageId; }
+
+    public String getAsunto() { return asunto; }
+    public void setAsunto(String asunto) { this.asunto = asunto; }
+
+    public String getRemitente() { return remitente; }
+    public void setRemitente(String remitente) { this.remitente = remitente; }
+
+    public String getNombreArchivo() { return nombreArchivo; }
+    public void setNombreArchivo(String nombreArchivo) { this.nombreArchivo = nombreArchivo; }
+
+    public String getNombreOriginal() { return nombreOriginal; }
+    public void setNombreOriginal(String nombreOriginal) { this.nombreOriginal = nombreOriginal; }
+
+    public String getHashContenido() { return hashContenido; }
+    public void setHashContenido(String hashContenido) { this.hashContenido = hashContenido; }
+
+    public LocalDateTime getFechaRecepcion() { return fechaRecepcion; }
+    public void setFechaRecepcion(LocalDateTime fechaRecepcion) { this.fechaRecepcion = fechaRecepcion; }
+
+    public LocalDate getFechaFactura() { return fechaFactura; }
+    public void setFechaFactura(LocalDate fechaFactura) { this.fechaFactura = fechaFactura; }
+
+    public String getNumeroFactura() { return numeroFactura; }
+    public void setNumeroFactura(String numeroFactura) { this.numeroFactura = numeroFactura; }
+
+    public String getNumeroSiniestro() { return numeroSiniestro; }
+    public void setNumeroSiniestro(String numeroSiniestro) { this.numeroSiniestro = numeroSiniestro; }
+
+    public String getNumeroOrden() { return numeroOrden; }
+    public void setNumeroOrden(String numeroOrden) { this.numeroOrden = numeroOrden; }
+
+    public String getAseguradoraDetectada() { return aseguradoraDetectada; }
+    public void setAseguradoraDetectada(String aseguradoraDetectada) { this.aseguradoraDetectada = aseguradoraDetectada; }
+
+    public int getIntentos() { return intentos; }
+    public void setIntentos(int intentos) { this.intentos = intentos; }
+
+    public String getUltimoError() { return ultimoError; }
+    public void setUltimoError(String ultimoError) { this.ultimoError = ultimoError; }
+
+    public LocalDateTime getProximoIntento() { return proximoIntento; }
+    public void setProximoIntento(LocalDateTime proximoIntento) { this.proximoIntento = proximoIntento; }
+
+    public Long getFacturaId() { return facturaId; }
+    public void setFacturaId(Long facturaId) { this.facturaId = facturaId; }
+
+    public LocalDateTime getFechaActualizacion() { return fechaActualizacion; }
+    public void setFechaActualizacion(LocalDateTime fechaActualizacion) { this.fechaActualizacion = fechaActualizacion; }
+
+    /**
+     * Pasa a la etapa indicada y reinicia el contador de reintentos.
+     */
+    public void avanzarA(EtapaIngesta siguiente) {
+        this.etapa = siguiente;
+        this.intentos = 0;
+        this.ultimoError = null;
+        this.proximoIntento = null;
+        this.fechaActualizacion = LocalDateTime.now();
+    }
+}
@@ -3,5 +3,26 @@ package com.agencia.seguros.model;
 public enum Sucursal {
     SANTA_FE,
     RAFAELA,
-    RECONQUISTA
-}
\ No newline at end of file
+    RECONQUISTA;
+
+    /**
+     * Sucursal según el punto de venta del número de factura
+     * ("0104-00062226" -> SANTA_FE), o null si no corresponde a ninguna.
+     */
+    public static Sucursal desdeNumeroFactura(String numeroFactura) {
+        if (numeroFactura == null) {
+            return null;
+        }
+
+        // Dejar solo dígitos: "0104-00062226" -> "010400062226"
+        String soloDigitos = numeroFactura.replaceAll("\\D", "");
+        if (soloDigitos.length() < 3) {
+            return null;
+        }
+
+        if (soloDigitos.startsWith("104") || soloDigitos.startsWith("0104")) return SANTA_FE;
+        if (soloDigitos.startsWith("109") || soloDigitos.startsWith("0109")) return RAFAELA;
+        if (soloDigitos.startsWith("105") || soloDigitos.startsWith("0105")) return RECONQUISTA;
+        return null;
+    }
+}
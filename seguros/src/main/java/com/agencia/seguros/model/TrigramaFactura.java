@@ -0,0 +1,105 @@
+package com.agencia.seguros.model;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Índice de búsqueda por substring de los números de una factura: un registro por
+ * (factura, campo, trigrama) del número normalizado (minúsculas, solo letras y dígitos).
+ * Un texto está contenido en un número solo si todos sus trigramas están en el índice,
+ * así que "contiene" se resuelve con el índice y después se confirma con LIKE.
+ */
+@Entity
+@Table(name = "facturas_trigramas", indexes = {
+        @Index(name = "idx_trigramas_busqueda", columnList = "campo, trigrama, factura_id"),
+        @Index(name = "idx_trigramas_factura", columnList = "factura_id")
+})
+@IdClass(TrigramaFactura.Clave.class)
+public class TrigramaFactura {
+
+    public static final String CAMPO_FACTURA = "F";
+    public static final String CAMPO_SINIESTRO = "S";
+    public static final String CAMPO_ORDEN = "O";
+
+    private static final int LARGO = 3;
+
+    @Id
+    @Column(name = "factura_id")
+    private Long facturaId;
+
+    @Id
+    @Column(length = 1)
+    private String campo;
+
+    @Id
+    @Column(length = LARGO)
+    private String trigrama;
+
+    public TrigramaFactura() {}
+
+    /**
+     * "0104-00062226" -> "010400062226". Quitar los separadores no cambia el resultado:
+     * si un texto está dentro del número, su forma normalizada está dentro de la del número.
+     */
+    public static String normalizar(String texto) {
+        if (texto == null) return "";
+        StringBuilder sb = new StringBuilder(texto.length());
+        for (char c : texto.toLowerCase(Locale.ROOT).toCharArray()) {
+            if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')) {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Trigramas distintos del texto normalizado (vacío si tiene menos de 3 caracteres útiles).
+     */
+    public static Set<String> trigramas(String texto) {
+        String normalizado = normalizar(texto);
+        Set<String> trigramas = new LinkedHashSet<>();
+        for (int i = 0; i + LARGO <= normalizado.length(); i++) {
+            trigramas.add(normalizado.substring(i, i + LARGO));
+        }
+        return trigramas;
+    }
+
+    // ===== Getters y setters =====
+
+    public Long getFacturaId() { return facturaId; }
+    public void setFacturaId(Long facturaId) { this.facturaId = facturaId; }
+
+    public String getCampo() { return campo; }
+    public void setCampo(String campo) { this.campo = campo; }
+
+    public String getTrigrama() { return trigrama; }
+    public void setTrigrama(String trigrama) { this.trigrama = trigrama; }
+
+    public static class Clave implements Serializable {
+
+        private Long facturaId;
+        private String campo;
+        private String trigrama;
+
+        public Clave() {}
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Clave c)) return false;
+            return Objects.equals(facturaId, c.facturaId)
+                    && Objects.equals(campo, c.campo)
+                    && Objects.equals(trigrama, c.trigrama);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(facturaId, campo, trigrama);
+        }
+    }
+}
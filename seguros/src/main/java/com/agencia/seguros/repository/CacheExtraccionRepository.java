@@ -0,0 +1,24 @@
+package com.agencia.seguros.repository;
+
+import com.agencia.seguros.model.CacheExtraccion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface CacheExtraccionRepository extends JpaRepository<CacheExtraccion, Long> {
+
+    Optional<CacheExtraccion> findByHashContenidoAndPerfil(String hashContenido, String perfil);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE CacheExtraccion c SET c.ultimoAcceso = :fecha WHERE c.id = :id")
+    void registrarAcceso(@Param("id") Long id, @Param("fecha") LocalDateTime fecha);
+
+    @Query("SELECT COALESCE(SUM(c.tamanio), 0) FROM CacheExtraccion c")
+    long tamanioTotal();
+}
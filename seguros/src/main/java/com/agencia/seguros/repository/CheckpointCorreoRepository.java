@@ -0,0 +1,11 @@
+package com.agencia.seguros.repository;
+
+import com.agencia.seguros.model.CheckpointCorreo;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Optional;
+
+public interface CheckpointCorreoRepository extends JpaRepository<CheckpointCorreo, Long> {
+
+    Optional<CheckpointCorreo> findByCarpeta(String carpeta);
+}
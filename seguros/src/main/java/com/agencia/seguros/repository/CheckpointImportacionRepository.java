@@ -0,0 +1,11 @@
+package com.agencia.seguros.repository;
+
+import com.agencia.seguros.model.CheckpointImportacion;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Optional;
+
+public interface CheckpointImportacionRepository extends JpaRepository<CheckpointImportacion, Long> {
+
+    Optional<CheckpointImportacion> findByDirectorio(String directorio);
+}
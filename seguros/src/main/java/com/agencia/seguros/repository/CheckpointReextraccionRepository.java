@@ -0,0 +1,11 @@
+package com.agencia.seguros.repository;
+
+import com.agencia.seguros.model.CheckpointReextraccion;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Optional;
+
+public interface CheckpointReextraccionRepository extends JpaRepository<CheckpointReextraccion, Long> {
+
+    Optional<CheckpointReextraccion> findByNombre(String nombre);
+}
@@ -0,0 +1,12 @@
+package com.agencia.seguros.repository;
+
+import com.agencia.seguros.model.CorreoFallido;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface CorreoFallidoRepository extends JpaRepository<CorreoFallido, Long> {
+
+    // Los fallidos del rango que se va a sincronizar
+    List<CorreoFallido> findByCarpetaAndUidValidityAndUidGreaterThanEqual(String carpeta, long uidValidity, long uid);
+}
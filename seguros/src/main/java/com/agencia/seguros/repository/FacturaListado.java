@@ -0,0 +1,57 @@
+package com.agencia.seguros.repository;
+
+import com.agencia.seguros.model.EstadoFactura;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Fila del listado de facturas: solo las columnas que muestra facturas.html, con el
+ * nombre de la aseguradora ya resuelto. No es una entidad (no la gestiona Hibernate).
+ */
+public class FacturaListado {
+
+    private final Long id;
+    private final String numeroFactura;
+    private final String numeroOrden;
+    private final String numeroSiniestro;
+    private final EstadoFactura estado;
+    private final String aseguradoraNombre;
+    private final String nombreArchivo;
+    private final LocalDate fechaFactura;
+    private final LocalDateTime fechaEnvio;
+    private final String observacionesAdmin;
+
+    public FacturaListado(Long id,
+                          String numeroFactura,
+                          String numeroOrden,
+                          String numeroSiniestro,
+                          EstadoFactura estado,
+                          String aseguradoraNombre,
+                          String nombreArchivo,
+                          LocalDate fechaFactura,
+                          LocalDateTime fechaEnvio,
+                          String observacionesAdmin) {
+        this.id = id;
+        this.numeroFactura = numeroFactura;
+        this.numeroOrden = numeroOrden;
+        this.numeroSiniestro = numeroSiniestro;
+        this.estado = estado;
+        this.aseguradoraNombre = aseguradoraNombre;
+        this.nombreArchivo = nombreArchivo;
+        this.fechaFactura = fechaFactura;
+        this.fechaEnvio = fechaEnvio;
+        this.observacionesAdmin = observacionesAdmin;
+    }
+
+    public Long getId() { return id; }
+    public String getNumeroFactura() { return numeroFactura; }
+    public String getNumeroOrden() { return numeroOrden; }
+    public String getNumeroSiniestro() { return numeroSiniestro; }
+    public EstadoFactura getEstado() { return estado; }
+    public String getAseguradoraNombre() { return aseguradoraNombre; }
+    public String getNombreArchivo() { return nombreArchivo; }
+    public LocalDate getFechaFactura() { return fechaFactura; }
+    public LocalDateTime getFechaEnvio() { return fechaEnvio; }
+    public String getObservacionesAdmin() { return observacionesAdmin; }
+}
@@ -0,0 +1,26 @@
+package com.agencia.seguros.repository;
+
+import com.agencia.seguros.model.Factura;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * Consultas del listado de facturas que devuelven {@link FacturaListado} en lugar de la
+ * entidad (implementación en FacturaListadoRepositoryImpl).
+ */
+public interface FacturaListadoRepository {
+
+    /**
+     * Una página: un SELECT con la aseguradora unida y, si hace falta, un COUNT.
+     */
+    Page<FacturaListado> listar(Specification<Factura> spec, Pageable pageable);
+
+    /**
+     * Las primeras {@code limite} filas en el orden indicado, sin COUNT (paginación por cursor).
+     */
+    List<FacturaListado> listar(Specification<Factura> spec, Sort orden, int limite);
+}
@@ -0,0 +1,94 @@
+package com.agencia.seguros.repository;
+
+import com.agencia.seguros.model.Aseguradora;
+import com.agencia.seguros.model.Factura;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * El listado con la entidad traía columnas que no se muestran y, por la aseguradora
+ * EAGER, un SELECT extra por cada aseguradora distinta de la página. Acá la aseguradora
+ * va en un LEFT JOIN del mismo SELECT y solo se proyectan las columnas de la tabla.
+ */
+@Transactional(readOnly = true)
+public class FacturaListadoRepositoryImpl implements FacturaListadoRepository {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    public Page<FacturaListado> listar(Specification<Factura> spec, Pageable pageable) {
+        CriteriaQuery<FacturaListado> query = consulta(spec, pageable.getSort());
+
+        List<FacturaListado> filas = em.createQuery(query)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+
+        // Sin COUNT cuando la página ya dice el total (primera página incompleta o última)
+        return PageableExecutionUtils.getPage(filas, pageable, () -> contar(spec));
+    }
+
+    @Override
+    public List<FacturaListado> listar(Specification<Factura> spec, Sort orden, int limite) {
+        return em.createQuery(consulta(spec, orden))
+                .setMaxResults(limite)
+                .getResultList();
+    }
+
+    private CriteriaQuery<FacturaListado> consulta(Specification<Factura> spec, Sort orden) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<FacturaListado> query = cb.createQuery(FacturaListado.class);
+        Root<Factura> f = query.from(Factura.class);
+        Join<Factura, Aseguradora> a = f.join("aseguradora", JoinType.LEFT);
+
+        query.select(cb.construct(FacturaListado.class,
+                f.get("id"),
+                f.get("numeroFactura"),
+                f.get("numeroOrden"),
+                f.get("numeroSiniestro"),
+                f.get("estado"),
+                a.get("nombre"),
+                f.get("nombreArchivo"),
+                f.get("fechaFactura"),
+                f.get("fechaEnvio"),
+                f.get("observacionesAdmin")));
+
+        Predicate filtro = (spec != null) ? spec.toPredicate(f, query, cb) : null;
+        if (filtro != null) {
+            query.where(filtro);
+        }
+        if (orden.isSorted()) {
+            query.orderBy(QueryUtils.toOrders(orden, f, cb));
+        }
+        return query;
+    }
+
+    private long contar(Specification<Factura> spec) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Factura> f = query.from(Factura.class);
+        query.select(cb.count(f));
+
+        Predicate filtro = (spec != null) ? spec.toPredicate(f, query, cb) : null;
+        if (filtro != null) {
+            query.where(filtro);
+        }
+        return em.createQuery(query).getSingleResult();
+    }
+}
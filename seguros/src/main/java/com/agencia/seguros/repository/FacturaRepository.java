@@ -8,11 +8,12 @@ import org.springframework.stereotype.Repository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface FacturaRepository extends JpaRepository<Factura, Long>, JpaSpecificationExecutor<Factura> {
+public interface FacturaRepository extends JpaRepository<Factura, Long>, JpaSpecificationExecutor<Factura>, FacturaListadoRepository {
 
     @Query(value = """
     SELECT DATE(f.fecha_factura) AS periodo, COUNT(*) AS total
@@ -50,4 +51,14 @@ public interface FacturaRepository extends JpaRepository<Factura, Long>, JpaSpec
 
     Optional<Factura> findByMessageId(String messageId);
     boolean existsByMessageId(String messageId);
+    boolean existsByMessageIdAndHashContenido(String messageId, String hashContenido);
+
+    @Query("SELECT f.messageId FROM Factura f WHERE f.messageId IS NOT NULL")
+    List<String> findAllMessageIds();
+
+    @Query("SELECT f.messageId FROM Factura f WHERE f.messageId IN :messageIds")
+    List<String> findMessageIdsIn(@Param("messageIds") Collection<String> messageIds);
+
+    @Query("SELECT f.hashContenido FROM Factura f WHERE f.hashContenido IN :hashes")
+    List<String> findHashesIn(@Param("hashes") Collection<String> hashes);
 }
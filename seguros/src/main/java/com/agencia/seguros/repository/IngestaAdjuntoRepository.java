@@ -0,0 +1,38 @@
+package com.agencia.seguros.repository;
+
+import com.agencia.seguros.model.EtapaIngesta;
+import com.agencia.seguros.model.IngestaAdjunto;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface IngestaAdjuntoRepository extends JpaRepository<IngestaAdjunto, Long> {
+
+    @Query("""
+        SELECT i.id FROM IngestaAdjunto i
+        WHERE i.etapa = :etapa
+          AND (i.proximoIntento IS NULL OR i.proximoIntento <= :ahora)
+        ORDER BY i.id
+    """)
+    List<Long> findIdsListos(@Param("etapa") EtapaIngesta etapa,
+                             @Param("ahora") LocalDateTime ahora,
+                             Pageable pageable);
+
+    long countByEtapa(EtapaIngesta etapa);
+
+    // Otra entrega del mismo PDF que ya pasó por extracción
+    Optional<IngestaAdjunto> findFirstByHashContenidoAndEtapaInAndIdNot(String hashContenido,
+                                                                        Collection<EtapaIngesta> etapas,
+                                                                        Long id);
+
+    boolean existsByHashContenidoAndEtapa(String hashContenido, EtapaIngesta etapa);
+
+    // Administración: DEAD_LETTER / CUARENTENA, los más recientes primero
+    List<IngestaAdjunto> findByEtapaInOrderByIdDesc(Collection<EtapaIngesta> etapas, Pageable pageable);
+}
@@ -2,18 +2,40 @@ package com.agencia.seguros.repository.spec;
 
 import com.agencia.seguros.model.EstadoFactura;
 import com.agencia.seguros.model.Factura;
+import com.agencia.seguros.model.Sucursal;
+import com.agencia.seguros.model.TrigramaFactura;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
 import org.springframework.data.jpa.domain.Specification;
 
 import java.time.LocalDate;
+import java.util.Set;
 
 public class FacturaSpecifications {
 
+    /**
+     * Estado recibido como texto (parámetro del listado), sin distinguir mayúsculas.
+     * Un estado que no existe no trae filas, como antes.
+     */
     public static Specification<Factura> estadoIgual(String estado) {
         if (estado == null || estado.isBlank()) return null;
-        return (root, query, cb) ->
-                cb.equal(cb.upper(root.get("estado").as(String.class)), estado.toUpperCase());
-        // Alternativa más estricta si estado es Enum:
-        // return (root, query, cb) -> cb.equal(root.get("estado"), EstadoFactura.valueOf(estado));
+
+        EstadoFactura valor;
+        try {
+            valor = EstadoFactura.valueOf(estado.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return (root, query, cb) -> cb.disjunction();
+        }
+        return estadoIgual(valor);
+    }
+
+    /**
+     * Igualdad sobre la columna tal cual (sin upper ni cast), así usa idx_facturas_estado_fecha_id.
+     */
+    public static Specification<Factura> estadoIgual(EstadoFactura estado) {
+        if (estado == null) return null;
+        return (root, query, cb) -> cb.equal(root.get("estado"), estado);
     }
 
     public static Specification<Factura> aseguradoraIdIgual(Long aseguradoraId) {
@@ -22,21 +44,41 @@ public class FacturaSpecifications {
     }
 
     public static Specification<Factura> numeroFacturaLike(String numeroFactura) {
-        if (numeroFactura == null || numeroFactura.isBlank()) return null;
-        return (root, query, cb) ->
-                cb.like(root.get("numeroFactura"), "%" + numeroFactura + "%");
+        return numeroContiene("numeroFactura", TrigramaFactura.CAMPO_FACTURA, numeroFactura);
     }
 
     public static Specification<Factura> numeroSiniestroLike(String numeroSiniestro) {
-        if (numeroSiniestro == null || numeroSiniestro.isBlank()) return null;
-        return (root, query, cb) ->
-                cb.like(root.get("numeroSiniestro"), "%" + numeroSiniestro + "%");
+        return numeroContiene("numeroSiniestro", TrigramaFactura.CAMPO_SINIESTRO, numeroSiniestro);
     }
 
     public static Specification<Factura> numeroOrdenLike(String numeroOrden) {
-        if (numeroOrden == null || numeroOrden.isBlank()) return null;
-        return (root, query, cb) ->
-                cb.like(root.get("numeroOrden"), "%" + numeroOrden + "%");
+        return numeroContiene("numeroOrden", TrigramaFactura.CAMPO_ORDEN, numeroOrden);
+    }
+
+    /**
+     * "Contiene" sobre un número. Un LIKE '%texto%' no puede usar índice; con 3 o más
+     * caracteres útiles se filtra primero por facturas_trigramas (las que tienen todos los
+     * trigramas del texto) y el LIKE solo confirma sobre esas. Con menos, LIKE directo.
+     */
+    private static Specification<Factura> numeroContiene(String atributo, String campo, String texto) {
+        if (texto == null || texto.isBlank()) return null;
+        Set<String> trigramas = TrigramaFactura.trigramas(texto);
+
+        return (root, query, cb) -> {
+            Predicate like = cb.like(root.get(atributo), "%" + texto + "%");
+            if (trigramas.isEmpty()) {
+                return like;
+            }
+
+            Subquery<Long> candidatas = query.subquery(Long.class);
+            Root<TrigramaFactura> t = candidatas.from(TrigramaFactura.class);
+            candidatas.select(t.<Long>get("facturaId"))
+                    .where(cb.equal(t.get("campo"), campo), t.get("trigrama").in(trigramas))
+                    .groupBy(t.get("facturaId"))
+                    .having(cb.equal(cb.countDistinct(t.get("trigrama")), (long) trigramas.size()));
+
+            return cb.and(root.get("id").in(candidatas), like);
+        };
     }
 
     /**
@@ -55,24 +97,53 @@ public class FacturaSpecifications {
     }
 
     /**
-     * Filtro por sucursal basado en prefijo del número de factura.
-     * Si podés guardar sucursal como campo en Factura, sería MUCHO mejor.
+     * Paginación por cursor: filas que van después de (fecha, id) en el orden del listado
+     * (fechaFactura DESC, id DESC). MySQL ordena los NULL como menores, así que en orden
+     * descendente las facturas sin fecha quedan al final.
+     *
+     * @param fecha fechaFactura de la última fila mostrada (puede ser null)
      */
-    public static Specification<Factura> numeroFacturaPrefijo(String... prefijos) {
-        if (prefijos == null || prefijos.length == 0) return null;
+    public static Specification<Factura> despuesDe(LocalDate fecha, Long id) {
+        if (id == null) return null;
 
         return (root, query, cb) -> {
-            var numero = root.get("numeroFactura").as(String.class);
-
-            var predicates = new java.util.ArrayList<jakarta.persistence.criteria.Predicate>();
+            var f = root.<LocalDate>get("fechaFactura");
+            var i = root.<Long>get("id");
 
-            for (String p : prefijos) {
-                if (p != null && !p.isBlank()) {
-                    predicates.add(cb.like(numero, p + "%"));
-                }
+            if (fecha == null) {
+                return cb.and(cb.isNull(f), cb.lessThan(i, id));
             }
+            return cb.or(
+                    cb.lessThan(f, fecha),
+                    cb.and(cb.equal(f, fecha), cb.lessThan(i, id)),
+                    cb.isNull(f)
+            );
+        };
+    }
+
+    /**
+     * Inversa de despuesDe: filas que van antes de (fecha, id); se piden en orden ascendente
+     * (fechaFactura ASC, id ASC) y se dan vuelta para mostrarlas.
+     */
+    public static Specification<Factura> antesDe(LocalDate fecha, Long id) {
+        if (id == null) return null;
+
+        return (root, query, cb) -> {
+            var f = root.<LocalDate>get("fechaFactura");
+            var i = root.<Long>get("id");
 
-            return cb.or(predicates.toArray(new jakarta.persistence.criteria.Predicate[0]));
+            if (fecha == null) {
+                return cb.or(cb.isNotNull(f), cb.and(cb.isNull(f), cb.greaterThan(i, id)));
+            }
+            return cb.or(
+                    cb.greaterThan(f, fecha),
+                    cb.and(cb.equal(f, fecha), cb.greaterThan(i, id))
+            );
         };
     }
+
+    public static Specification<Factura> sucursalIgual(Sucursal sucursal) {
+        if (sucursal == null) return null;
+        return (root, query, cb) -> cb.equal(root.get("sucursal"), sucursal);
+    }
 }
@@ -0,0 +1,19 @@
+package com.agencia.seguros.service;
+
+import java.nio.file.Path;
+
+/**
+ * Adjunto PDF ya copiado a disco desde el correo, listo para extraer y registrar
+ * fuera del hilo IMAP. nombreGuardado es el archivo en el almacén ({@code <hash>.pdf});
+ * nombreOriginal, el nombre del adjunto en el correo. Con motivoCuarentena (por ejemplo,
+ * un adjunto que excede el tamaño máximo) la fila entra directo en CUARENTENA, sin extracción.
+ */
+public record AdjuntoDescargado(Path archivo,
+                                String nombreGuardado,
+                                String nombreOriginal,
+                                String hashContenido,
+                                String asunto,
+                                String remitente,
+                                String messageId,
+                                String motivoCuarentena) {
+}
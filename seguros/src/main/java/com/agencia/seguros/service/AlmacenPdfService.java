@@ -0,0 +1,97 @@
+package com.agencia.seguros.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Almacén de PDFs direccionado por contenido: cada archivo se guarda una sola vez
+ * como {@code <sha256>.pdf} dentro de app.facturas.ruta-archivos.
+ * <p>
+ * El hash se calcula mientras se escribe (una sola lectura del stream). Si el contenido
+ * ya existía se descarta la copia temporal y se reutiliza el archivo existente.
+ */
+@Service
+public class AlmacenPdfService {
+
+    private static final String EXTENSION = ".pdf";
+
+    @Value("${app.facturas.ruta-archivos}")
+    private String rutaArchivos;
+
+    /**
+     * Archivo ya almacenado: hash SHA-256 en hexadecimal, nombre relativo a la carpeta
+     * de archivos (lo que se guarda en Factura.nombreArchivo) y si es contenido nuevo.
+     */
+    public record Almacenado(String hash, String nombreArchivo, Path ruta, boolean nuevo) {
+    }
+
+    public Almacenado guardar(InputStream contenido) throws IOException {
+        Path carpeta = Path.of(rutaArchivos);
+        Files.createDirectories(carpeta);
+
+        // El temporal va en la misma carpeta para que el move final sea atómico
+        Path temporal = Files.createTempFile(carpeta, "ingreso-", ".part");
+        try {
+            MessageDigest digest = nuevoDigest();
+            try (DigestInputStream in = new DigestInputStream(contenido, digest);
+                 OutputStream out = Files.newOutputStream(temporal)) {
+                in.transferTo(out);
+            }
+
+            String hash = HexFormat.of().formatHex(digest.digest());
+            String nombreArchivo = hash + EXTENSION;
+            Path destino = carpeta.resolve(nombreArchivo);
+
+            if (Files.exists(destino)) {
+                return new Almacenado(hash, nombreArchivo, destino, false);
+            }
+
+            try {
+                Files.move(temporal, destino, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                // Otro hilo guardó el mismo contenido entre el exists y el move
+                return new Almacenado(hash, nombreArchivo, destino, false);
+            }
+            return new Almacenado(hash, nombreArchivo, destino, true);
+
+        } finally {
+            Files.deleteIfExists(temporal);
+        }
+    }
+
+    public Path resolver(String nombreArchivo) {
+        return Path.of(rutaArchivos).resolve(nombreArchivo);
+    }
+
+    /**
+     * SHA-256 (hex) de un archivo, para archivos que no pasaron por guardar().
+     */
+    public static String hash(Path archivo) throws IOException {
+        MessageDigest digest = nuevoDigest();
+        try (DigestInputStream in = new DigestInputStream(Files.newInputStream(archivo), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest nuevoDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 es obligatorio en toda JVM
+            throw new IllegalStateException(e);
+        }
+    }
+}
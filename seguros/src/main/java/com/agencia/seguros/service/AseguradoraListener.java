@@ -0,0 +1,50 @@
+package com.agencia.seguros.service;
+
+import com.agencia.seguros.model.Aseguradora;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Invalida el {@link CatalogoAseguradoras} cuando cambia una aseguradora.
+ * Se invalida en el momento y otra vez después del commit, para que una recarga
+ * concurrente no deje en memoria los datos anteriores. Después del commit se recarga
+ * en segundo plano, que actualiza los alias del detector de aseguradoras.
+ */
+@Component
+public class AseguradoraListener {
+
+    // Diferido: el listener se crea junto con el EntityManagerFactory, antes que el catálogo
+    private final ObjectProvider<CatalogoAseguradoras> catalogo;
+
+    public AseguradoraListener(ObjectProvider<CatalogoAseguradoras> catalogo) {
+        this.catalogo = catalogo;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void aseguradoraModificada(Aseguradora aseguradora) {
+        CatalogoAseguradoras c = catalogo.getIfAvailable();
+        if (c == null) {
+            return;
+        }
+
+        c.invalidar();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    c.invalidar();
+                    c.recargarEnSegundoPlano();
+                }
+            });
+        } else {
+            c.recargarEnSegundoPlano();
+        }
+    }
+}
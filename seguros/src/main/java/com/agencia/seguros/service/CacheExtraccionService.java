@@ -0,0 +1,250 @@
+package com.agencia.seguros.service;
+
+import com.agencia.seguros.config.ExtraccionProperties;
+import com.agencia.seguros.model.CacheExtraccion;
+import com.agencia.seguros.repository.CacheExtraccionRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cache persistente de extracciones (tabla cache_extracciones), por hash del contenido
+ * y perfil. Reprocesar un PDF ya visto (reintentos, re-importaciones, re-extracción)
+ * es una consulta en lugar de un parseo con PDFBox:
+ * <ul>
+ *   <li>misma versión de reglas: se devuelven los campos guardados;</li>
+ *   <li>otra versión: se re-parsea el texto guardado, sin abrir el PDF.</li>
+ * </ul>
+ * El tamaño total se acota en app.extraccion.cache.tamanio-maximo-mb desalojando las
+ * entradas usadas hace más tiempo. Un fallo del cache nunca hace fallar la extracción.
+ */
+@Service
+public class CacheExtraccionService {
+
+    private static final long MB = 1024L * 1024L;
+
+    // Campos, claves y overhead de la fila, aparte del texto comprimido
+    private static final int TAMANIO_FIJO = 512;
+
+    private static final int LOTE_DESALOJO = 500;
+
+    private static final String SELECT_MAS_ANTIGUAS = """
+        SELECT id, tamanio
+        FROM cache_extracciones
+        ORDER BY ultimo_acceso
+        LIMIT :limite
+    """;
+
+    private final CacheExtraccionRepository cacheExtraccionRepository;
+    private final NamedParameterJdbcTemplate jdbc;
+    private final ExtraccionProperties extraccionProperties;
+
+    private final AtomicLong aciertos = new AtomicLong();
+    private final AtomicLong textosReutilizados = new AtomicLong();
+    private final AtomicLong fallos = new AtomicLong();
+
+    public CacheExtraccionService(CacheExtraccionRepository cacheExtraccionRepository,
+                                  NamedParameterJdbcTemplate jdbc,
+                                  ExtraccionProperties extraccionProperties) {
+        this.cacheExtraccionRepository = cacheExtraccionRepository;
+        this.jdbc = jdbc;
+        this.extraccionProperties = extraccionProperties;
+    }
+
+    /**
+     * Entrada encontrada: los campos valen para versionReglas; el texto se descomprime
+     * solo si hace falta re-parsear.
+     */
+    public record Entrada(String versionReglas, ResultadoExtraccion resultado, byte[] textos) {
+
+        ExtraccionPdfService.Lectura lectura() {
+            return descomprimir(textos);
+        }
+    }
+
+    public boolean habilitado() {
+        return extraccionProperties.getCache().isHabilitado();
+    }
+
+    /**
+     * @return la entrada para ese contenido y perfil, o null si no hay (o el cache falla)
+     */
+    public Entrada buscar(String hashContenido, String perfil) {
+        if (!habilitado() || hashContenido == null) {
+            return null;
+        }
+
+        try {
+            CacheExtraccion c = cacheExtraccionRepository.findByHashContenidoAndPerfil(hashContenido, perfil).orElse(null);
+            if (c == null) {
+                fallos.incrementAndGet();
+                return null;
+            }
+            cacheExtraccionRepository.registrarAcceso(c.getId(), LocalDateTime.now());
+
+            ResultadoExtraccion resultado = new ResultadoExtraccion(
+                    c.getFechaFactura(),
+                    c.getNumeroFactura(),
+                    c.getNumeroSiniestro(),
+                    c.getNumeroOrden(),
+                    c.getAseguradora(),
+                    new ResultadoExtraccion.Tiempos(Duration.ZERO, Duration.ZERO, Duration.ZERO, Duration.ZERO)
+            );
+            return new Entrada(c.getVersionReglas(), resultado, c.getTextos());
+
+        } catch (Exception e) {
+            System.err.println("Cache de extracción no disponible: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Guarda (o actualiza) el resultado de una extracción hecha con la versión de reglas indicada.
+     */
+    public void guardar(String hashContenido, String perfil, String versionReglas,
+                        ResultadoExtraccion resultado, ExtraccionPdfService.Lectura lectura) {
+        if (!habilitado() || hashContenido == null) {
+            return;
+        }
+
+        try {
+            CacheExtraccion c = cacheExtraccionRepository.findByHashContenidoAndPerfil(hashContenido, perfil)
+                    .orElseGet(() -> new CacheExtraccion(hashContenido, perfil));
+
+            byte[] textos = comprimir(lectura);
+            c.setVersionReglas(versionReglas);
+            c.setFechaFactura(resultado.fechaFactura());
+            c.setNumeroFactura(resultado.numeroFactura());
+            c.setNumeroSiniestro(resultado.numeroSiniestro());
+            c.setNumeroOrden(resultado.numeroOrden());
+            c.setAseguradora(resultado.aseguradora());
+            c.setTextos(textos);
+            c.setTamanio(textos.length + TAMANIO_FIJO);
+            c.setUltimoAcceso(LocalDateTime.now());
+            cacheExtraccionRepository.save(c);
+
+        } catch (DataIntegrityViolationException e) {
+            // Otro hilo guardó el mismo contenido y perfil: queda esa entrada
+        } catch (Exception e) {
+            System.err.println("No se pudo guardar en el cache de extracción: " + e.getMessage());
+        }
+    }
+
+    void registrarAcierto(boolean textoReutilizado) {
+        (textoReutilizado ? textosReutilizados : aciertos).incrementAndGet();
+    }
+
+    /**
+     * Desaloja las entradas usadas hace más tiempo hasta quedar en el 90% del tope.
+     */
+    @Scheduled(fixedDelayString = "${app.extraccion.cache.desalojo-ms:300000}")
+    public void desalojar() {
+        int tamanioMaximoMb = extraccionProperties.getCache().getTamanioMaximoMb();
+        if (!habilitado() || tamanioMaximoMb <= 0) {
+            return;
+        }
+
+        try {
+            long total = cacheExtraccionRepository.tamanioTotal();
+            long limite = tamanioMaximoMb * MB;
+            if (total <= limite) {
+                return;
+            }
+
+            long aLiberar = total - (limite * 9 / 10);
+            long liberado = 0;
+            int borradas = 0;
+
+            while (liberado < aLiberar) {
+                List<long[]> candidatas = jdbc.query(SELECT_MAS_ANTIGUAS,
+                        new MapSqlParameterSource("limite", LOTE_DESALOJO),
+                        (rs, i) -> new long[]{rs.getLong("id"), rs.getLong("tamanio")});
+                if (candidatas.isEmpty()) {
+                    break;
+                }
+
+                List<Long> ids = new ArrayList<>();
+                for (long[] candidata : candidatas) {
+                    if (liberado >= aLiberar) break;
+                    ids.add(candidata[0]);
+                    liberado += candidata[1];
+                }
+                jdbc.update("DELETE FROM cache_extracciones WHERE id IN (:ids)", new MapSqlParameterSource("ids", ids));
+                borradas += ids.size();
+            }
+
+            System.out.println("Cache de extracción: " + borradas + " entradas desalojadas ("
+                    + (liberado / MB) + " MB), aciertos=" + aciertos.get()
+                    + " textoReutilizado=" + textosReutilizados.get() + " fallos=" + fallos.get());
+
+        } catch (Exception e) {
+            System.err.println("Error desalojando el cache de extracción: " + e.getMessage());
+        }
+    }
+
+    // ===== formato del texto: gzip de [acotado][¿completo?][completo] =====
+
+    static byte[] comprimir(ExtraccionPdfService.Lectura lectura) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(bytes))) {
+            escribir(out, lectura.acotados());
+            out.writeBoolean(lectura.completos() != null);
+            if (lectura.completos() != null) {
+                escribir(out, lectura.completos());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static ExtraccionPdfService.Lectura descomprimir(byte[] textos) {
+        try (DataInputStream in = new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(textos)))) {
+            ExtraccionPdfService.Textos acotados = leer(in);
+            ExtraccionPdfService.Textos completos = in.readBoolean() ? leer(in) : null;
+            return new ExtraccionPdfService.Lectura(acotados, completos);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void escribir(DataOutputStream out, ExtraccionPdfService.Textos textos) throws IOException {
+        out.writeBoolean(textos.completo());
+        escribirTexto(out, textos.flujo());
+        escribirTexto(out, textos.ordenado());
+    }
+
+    private static ExtraccionPdfService.Textos leer(DataInputStream in) throws IOException {
+        boolean completo = in.readBoolean();
+        return new ExtraccionPdfService.Textos(leerTexto(in), leerTexto(in), completo);
+    }
+
+    private static void escribirTexto(DataOutputStream out, String texto) throws IOException {
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String leerTexto(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
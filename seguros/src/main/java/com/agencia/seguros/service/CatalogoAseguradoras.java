@@ -0,0 +1,215 @@
+package com.agencia.seguros.service;
+
+import com.agencia.seguros.model.Aseguradora;
+import com.agencia.seguros.repository.AseguradoraRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Catálogo de aseguradoras en memoria (read-through): la tabla es chica y casi no cambia,
+ * así que se carga entera y se sirve desde memoria por id, por nombre normalizado
+ * (minúsculas, sin tildes ni puntuación) y ordenada por nombre.
+ * <p>
+ * Se invalida cuando se crea, modifica o borra una aseguradora ({@link AseguradoraListener})
+ * y, como red de seguridad para cambios hechos por fuera de la aplicación, vence a los
+ * app.aseguradoras.cache-minutos. Las instancias devueltas son compartidas: solo lectura.
+ * <p>
+ * Cada recarga actualiza también los alias del {@link DetectorAseguradoras}: a la tabla
+ * fija se suman las aseguradoras de la base que no cubre ningún alias, así una aseguradora
+ * dada de alta desde la aplicación se detecta por su nombre sin redeploy.
+ */
+@Service
+public class CatalogoAseguradoras {
+
+    private final AseguradoraRepository aseguradoraRepository;
+    private final DetectorAseguradoras detectorAseguradoras;
+
+    @Value("${app.aseguradoras.cache-minutos:10}")
+    private long cacheMinutos;
+
+    private volatile Snapshot snapshot;
+
+    // Nombres con los que se compilaron los alias la última vez (para no recompilar de más)
+    private List<String> nombresEnDetector = List.of();
+
+    private final AtomicLong aciertos = new AtomicLong();
+    private final AtomicLong fallos = new AtomicLong();
+    private final AtomicLong invalidaciones = new AtomicLong();
+
+    public CatalogoAseguradoras(AseguradoraRepository aseguradoraRepository, DetectorAseguradoras detectorAseguradoras) {
+        this.aseguradoraRepository = aseguradoraRepository;
+        this.detectorAseguradoras = detectorAseguradoras;
+    }
+
+    /**
+     * Carga inicial, para que el detector tenga los alias de la base desde el arranque.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void precargar() {
+        recargarEnSegundoPlano();
+    }
+
+    /**
+     * Contadores desde el arranque: lecturas servidas desde memoria, cargas desde la base
+     * e invalidaciones recibidas.
+     */
+    public record Estadisticas(long aciertos, long fallos, long invalidaciones, int tamanio) {
+
+        public double tasaAciertos() {
+            long total = aciertos + fallos;
+            return (total == 0) ? 0 : (double) aciertos / total;
+        }
+    }
+
+    public List<Aseguradora> listarOrdenadas() {
+        return obtener().ordenadas;
+    }
+
+    public Optional<Aseguradora> buscarPorId(Long id) {
+        if (id == null) return Optional.empty();
+        return Optional.ofNullable(obtener().porId.get(id));
+    }
+
+    public Optional<Aseguradora> buscarPorNombre(String nombre) {
+        if (nombre == null || nombre.isBlank()) return Optional.empty();
+        return Optional.ofNullable(obtener().porNombre.get(normalizar(nombre)));
+    }
+
+    public void invalidar() {
+        snapshot = null;
+        invalidaciones.incrementAndGet();
+    }
+
+    /**
+     * Recarga en otro hilo (y con eso los alias del detector). La usa el listener después
+     * del commit: ahí no conviene consultar la base desde el hilo de la transacción.
+     */
+    public void recargarEnSegundoPlano() {
+        CompletableFuture.runAsync(() -> {
+            try {
+                obtener();
+            } catch (Exception e) {
+                System.err.println("No se pudo recargar el catálogo de aseguradoras: " + e.getMessage());
+            }
+        });
+    }
+
+    public Estadisticas estadisticas() {
+        Snapshot s = snapshot;
+        return new Estadisticas(aciertos.get(), fallos.get(), invalidaciones.get(),
+                (s == null) ? 0 : s.ordenadas.size());
+    }
+
+    @Scheduled(fixedDelay = 600_000)
+    public void reportar() {
+        Estadisticas e = estadisticas();
+        if (e.aciertos() + e.fallos() > 0) {
+            System.out.printf("Catálogo de aseguradoras: %d aciertos, %d cargas (%.1f%% aciertos), %d invalidaciones, %d en memoria%n",
+                    e.aciertos(), e.fallos(), e.tasaAciertos() * 100, e.invalidaciones(), e.tamanio());
+        }
+    }
+
+    private Snapshot obtener() {
+        Snapshot s = snapshot;
+        if (s != null && !s.vencido()) {
+            aciertos.incrementAndGet();
+            return s;
+        }
+        return recargar();
+    }
+
+    private synchronized Snapshot recargar() {
+        // Otro hilo pudo haberlo recargado mientras esperábamos
+        Snapshot s = snapshot;
+        if (s != null && !s.vencido()) {
+            aciertos.incrementAndGet();
+            return s;
+        }
+
+        fallos.incrementAndGet();
+        List<Aseguradora> todas = aseguradoraRepository.findAll(Sort.by("nombre"));
+        s = new Snapshot(todas, System.nanoTime() + TimeUnit.MINUTES.toNanos(cacheMinutos));
+        snapshot = s;
+        actualizarDetector(todas);
+        return s;
+    }
+
+    private void actualizarDetector(List<Aseguradora> todas) {
+        List<String> nombres = new ArrayList<>();
+        for (Aseguradora a : todas) {
+            nombres.add(a.getNombre());
+        }
+        if (nombres.equals(nombresEnDetector)) {
+            return;
+        }
+
+        detectorAseguradoras.reemplazarAliases(aliasesCon(todas));
+        nombresEnDetector = nombres;
+    }
+
+    /**
+     * La tabla fija de alias más, al final (menor prioridad), cada aseguradora de la base
+     * cuyo nombre no coincide con ningún nombre o alias de la tabla.
+     */
+    static Map<String, List<String>> aliasesCon(List<Aseguradora> todas) {
+        Map<String, List<String>> aliases = new LinkedHashMap<>(DetectorAseguradoras.ASEGURADORA_ALIASES);
+
+        Set<String> cubiertos = new HashSet<>();
+        aliases.forEach((nombre, lista) -> {
+            cubiertos.add(normalizar(nombre));
+            lista.forEach(alias -> cubiertos.add(normalizar(alias)));
+        });
+
+        for (Aseguradora a : todas) {
+            String nombre = a.getNombre();
+            if (nombre != null && !nombre.isBlank() && cubiertos.add(normalizar(nombre))) {
+                aliases.put(nombre, List.of(nombre));
+            }
+        }
+        return aliases;
+    }
+
+    static String normalizar(String nombre) {
+        StringJoiner joiner = new StringJoiner(" ");
+        DetectorAseguradoras.tokenizar(nombre, joiner::add);
+        return joiner.toString();
+    }
+
+    private static final class Snapshot {
+
+        private final List<Aseguradora> ordenadas;
+        private final Map<Long, Aseguradora> porId = new HashMap<>();
+        private final Map<String, Aseguradora> porNombre = new HashMap<>();
+        private final long venceEn;
+
+        private Snapshot(List<Aseguradora> todas, long venceEn) {
+            this.ordenadas = List.copyOf(todas);
+            this.venceEn = venceEn;
+            for (Aseguradora a : todas) {
+                porId.put(a.getId(), a);
+                porNombre.putIfAbsent(normalizar(a.getNombre()), a);
+            }
+        }
+
+        private boolean vencido() {
+            return System.nanoTime() - venceEn > 0;
+        }
+    }
+}
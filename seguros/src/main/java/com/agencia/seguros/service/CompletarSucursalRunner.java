@@ -0,0 +1,102 @@
+package com.agencia.seguros.service;
+
+import com.agencia.seguros.model.Sucursal;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Completa facturas.sucursal en las facturas anteriores a la columna (o insertadas por
+ * fuera de JPA). Corre al arrancar, en segundo plano, por páginas de id y con un batch
+ * de UPDATE por página; es idempotente: solo toca filas con sucursal NULL.
+ * Los números que no corresponden a ninguna sucursal quedan en NULL.
+ */
+@Component
+public class CompletarSucursalRunner implements ApplicationRunner {
+
+    private static final String SELECT_PAGINA = """
+        SELECT id, numero_factura
+        FROM facturas
+        WHERE sucursal IS NULL AND numero_factura IS NOT NULL AND id > :ultimoId
+        ORDER BY id
+        LIMIT :limite
+    """;
+
+    private static final String UPDATE_SUCURSAL = """
+        UPDATE facturas SET sucursal = :sucursal WHERE id = :id AND sucursal IS NULL
+    """;
+
+    private final NamedParameterJdbcTemplate jdbc;
+
+    @Value("${app.facturas.completar-sucursal:true}")
+    private boolean habilitado;
+
+    @Value("${app.facturas.completar-sucursal-pagina:1000}")
+    private int tamanioPagina;
+
+    public CompletarSucursalRunner(NamedParameterJdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!habilitado || args.containsOption(ImportacionMasivaRunner.OPCION)) {
+            return;
+        }
+
+        Thread hilo = new Thread(this::completar, "completar-sucursal");
+        hilo.setDaemon(true);
+        hilo.start();
+    }
+
+    void completar() {
+        long ultimoId = 0;
+        int revisadas = 0;
+        int actualizadas = 0;
+
+        try {
+            while (true) {
+                List<Fila> pagina = jdbc.query(SELECT_PAGINA,
+                        new MapSqlParameterSource()
+                                .addValue("ultimoId", ultimoId)
+                                .addValue("limite", Math.max(tamanioPagina, 1)),
+                        (rs, i) -> new Fila(rs.getLong("id"), rs.getString("numero_factura")));
+                if (pagina.isEmpty()) {
+                    break;
+                }
+
+                List<MapSqlParameterSource> updates = new ArrayList<>();
+                for (Fila fila : pagina) {
+                    Sucursal sucursal = Sucursal.desdeNumeroFactura(fila.numeroFactura());
+                    if (sucursal != null) {
+                        updates.add(new MapSqlParameterSource()
+                                .addValue("id", fila.id())
+                                .addValue("sucursal", sucursal.name()));
+                    }
+                }
+                if (!updates.isEmpty()) {
+                    jdbc.batchUpdate(UPDATE_SUCURSAL, updates.toArray(new MapSqlParameterSource[0]));
+                }
+
+                revisadas += pagina.size();
+                actualizadas += updates.size();
+                ultimoId = pagina.get(pagina.size() - 1).id();
+            }
+
+            if (revisadas > 0) {
+                System.out.println("Sucursal completada en " + actualizadas + " de " + revisadas + " facturas sin sucursal");
+            }
+        } catch (Exception e) {
+            System.err.println("Error completando sucursal de facturas (se reintenta en el próximo arranque): " + e.getMessage());
+        }
+    }
+
+    private record Fila(long id, String numeroFactura) {
+    }
+}
@@ -0,0 +1,84 @@
+package com.agencia.seguros.service;
+
+import com.agencia.seguros.config.LecturaReplica;
+import com.agencia.seguros.model.Factura;
+import com.agencia.seguros.model.HistorialFactura;
+import com.agencia.seguros.repository.FacturaListado;
+import com.agencia.seguros.repository.FacturaRepository;
+import com.agencia.seguros.repository.HistorialFacturaRepository;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Lecturas de las páginas (listado, historial, reportes). Todo corre en transacciones
+ * read-only: Hibernate no hace flush ni dirty checking de lo que carga, y si hay réplica
+ * configurada (ReplicaDataSourceConfig) la consulta va ahí y no compite con la ingesta.
+ * Lo leído de la réplica puede venir con unos segundos de atraso.
+ * <p>
+ * Es el único servicio que lee de la réplica: la marca ({@link LecturaReplica}) se pone antes
+ * de abrir la transacción, por eso se usa un TransactionTemplate y no @Transactional.
+ */
+@Service
+public class ConsultaFacturasService {
+
+    private final FacturaRepository facturaRepository;
+    private final HistorialFacturaRepository historialFacturaRepository;
+    private final TransactionTemplate lectura;
+
+    public ConsultaFacturasService(FacturaRepository facturaRepository,
+                                   HistorialFacturaRepository historialFacturaRepository,
+                                   PlatformTransactionManager transactionManager) {
+        this.facturaRepository = facturaRepository;
+        this.historialFacturaRepository = historialFacturaRepository;
+        this.lectura = new TransactionTemplate(transactionManager);
+        this.lectura.setReadOnly(true);
+    }
+
+    public record Historial(Factura factura, List<HistorialFactura> movimientos) {
+    }
+
+    public Page<FacturaListado> listar(Specification<Factura> spec, Pageable pageable) {
+        return leer(() -> facturaRepository.listar(spec, pageable));
+    }
+
+    public List<FacturaListado> listar(Specification<Factura> spec, Sort orden, int limite) {
+        return leer(() -> facturaRepository.listar(spec, orden, limite));
+    }
+
+    public long contar(Specification<Factura> spec) {
+        return leer(() -> facturaRepository.count(spec));
+    }
+
+    /**
+     * Factura y sus movimientos (más recientes primero), en la misma transacción.
+     */
+    public Optional<Historial> historial(Long facturaId) {
+        return leer(() -> facturaRepository.findById(facturaId)
+                .map(f -> new Historial(f, historialFacturaRepository.findByFacturaIdOrderByFechaMovimientoDesc(facturaId))));
+    }
+
+    /**
+     * Facturas por período (DIA, SEMANA o MES): filas [periodo, total].
+     */
+    public List<Object[]> contarPorPeriodo(String agrupacion, LocalDate desde, LocalDate hasta) {
+        return leer(() -> switch (agrupacion.toUpperCase()) {
+            case "SEMANA" -> facturaRepository.contarPorSemana(desde, hasta);
+            case "MES" -> facturaRepository.contarPorMes(desde, hasta);
+            default -> facturaRepository.contarPorDia(desde, hasta);
+        });
+    }
+
+    private <T> T leer(Supplier<T> consulta) {
+        return LecturaReplica.ejecutar(() -> lectura.execute(status -> consulta.get()));
+    }
+}
@@ -0,0 +1,54 @@
+package com.agencia.seguros.service;
+
+import com.agencia.seguros.model.Factura;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Total aproximado de facturas por combinación de filtros, para el paginador por cursor:
+ * el COUNT se hace una vez y se reutiliza durante app.facturas.conteo-cache-segundos
+ * (las facturas nuevas en ese lapso no se reflejan, por eso es aproximado).
+ */
+@Service
+public class ConteoFacturasService {
+
+    // Tope de combinaciones de filtros recordadas; al superarlo se empieza de cero
+    private static final int MAXIMO_CLAVES = 500;
+
+    private final ConsultaFacturasService consultaFacturasService;
+
+    @Value("${app.facturas.conteo-cache-segundos:120}")
+    private long conteoCacheSegundos;
+
+    private record Conteo(long total, long calculadoEn) {
+    }
+
+    private final Map<String, Conteo> conteos = new ConcurrentHashMap<>();
+
+    public ConteoFacturasService(ConsultaFacturasService consultaFacturasService) {
+        this.consultaFacturasService = consultaFacturasService;
+    }
+
+    /**
+     * @param clave identifica los filtros de spec (misma clave = mismo conjunto de filas)
+     */
+    public long contar(String clave, Specification<Factura> spec) {
+        long ahora = System.nanoTime();
+        Conteo conteo = conteos.get(clave);
+        if (conteo != null && ahora - conteo.calculadoEn < TimeUnit.SECONDS.toNanos(conteoCacheSegundos)) {
+            return conteo.total;
+        }
+
+        long total = consultaFacturasService.contar(spec);
+        if (conteos.size() >= MAXIMO_CLAVES) {
+            conteos.clear();
+        }
+        conteos.put(clave, new Conteo(total, ahora));
+        return total;
+    }
+}
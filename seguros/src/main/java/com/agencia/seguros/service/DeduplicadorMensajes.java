@@ -0,0 +1,129 @@
+package com.agencia.seguros.service;
+
+import com.agencia.seguros.repository.FacturaRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Deduplicación de correos por Message-ID para un lote completo.
+ * <p>
+ * Un filtro de Bloom en memoria (cargado al arrancar con los Message-ID existentes)
+ * descarta sin ir a la base los que seguro son nuevos; solo los "posibles repetidos"
+ * se confirman con una única consulta IN. La unique de facturas.message_id sigue
+ * siendo la red de seguridad final.
+ */
+@Component
+public class DeduplicadorMensajes {
+
+    private static final int TAMANIO_LOTE_IN = 500;
+    private static final int CAPACIDAD_MINIMA = 10_000;
+
+    private final FacturaRepository facturaRepository;
+
+    // null hasta que termina la carga inicial: mientras tanto todo se consulta en la base
+    private volatile FiltroBloom filtro;
+
+    public DeduplicadorMensajes(FacturaRepository facturaRepository) {
+        this.facturaRepository = facturaRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargar() {
+        List<String> existentes = facturaRepository.findAllMessageIds();
+
+        FiltroBloom nuevo = new FiltroBloom(Math.max(CAPACIDAD_MINIMA, existentes.size() * 2));
+        existentes.forEach(nuevo::agregar);
+        this.filtro = nuevo;
+
+        System.out.println("Deduplicador de Message-ID cargado: " + existentes.size() + " existentes.");
+    }
+
+    /**
+     * Devuelve los Message-ID del lote que ya tienen factura registrada.
+     */
+    public Set<String> yaProcesados(Collection<String> messageIds) {
+        FiltroBloom f = this.filtro;
+
+        List<String> candidatos = new ArrayList<>();
+        for (String id : messageIds) {
+            if (id != null && !id.isBlank() && (f == null || f.podriaContener(id))) {
+                candidatos.add(id);
+            }
+        }
+
+        Set<String> procesados = new HashSet<>();
+        for (int i = 0; i < candidatos.size(); i += TAMANIO_LOTE_IN) {
+            List<String> lote = candidatos.subList(i, Math.min(i + TAMANIO_LOTE_IN, candidatos.size()));
+            procesados.addAll(facturaRepository.findMessageIdsIn(lote));
+        }
+        return procesados;
+    }
+
+    /**
+     * Se llama una vez registrada (o detectada como repetida) la factura de un correo.
+     */
+    public void registrar(String messageId) {
+        FiltroBloom f = this.filtro;
+        if (f != null && messageId != null && !messageId.isBlank()) {
+            f.agregar(messageId);
+        }
+    }
+
+    /**
+     * Filtro de Bloom con ~1% de falsos positivos a la capacidad indicada.
+     * Si se supera la capacidad solo sube la tasa de falsos positivos (más consultas), nunca hay falsos negativos.
+     */
+    static final class FiltroBloom {
+
+        private final BitSet bits;
+        private final int cantidadBits;
+        private final int cantidadHashes;
+
+        FiltroBloom(int capacidad) {
+            // m = -n ln(p) / (ln 2)^2 ; k = m/n ln 2  (p = 0.01)
+            this.cantidadBits = (int) Math.ceil(-capacidad * Math.log(0.01) / (Math.log(2) * Math.log(2)));
+            this.cantidadHashes = Math.max(1, (int) Math.round((double) cantidadBits / capacidad * Math.log(2)));
+            this.bits = new BitSet(cantidadBits);
+        }
+
+        synchronized void agregar(String valor) {
+            long hash = hash64(valor);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < cantidadHashes; i++) {
+                bits.set(Math.floorMod(h1 + i * h2, cantidadBits));
+            }
+        }
+
+        synchronized boolean podriaContener(String valor) {
+            long hash = hash64(valor);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < cantidadHashes; i++) {
+                if (!bits.get(Math.floorMod(h1 + i * h2, cantidadBits))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // FNV-1a de 64 bits sobre los bytes UTF-8
+        private static long hash64(String valor) {
+            long hash = 0xcbf29ce484222325L;
+            for (byte b : valor.getBytes(StandardCharsets.UTF_8)) {
+                hash ^= (b & 0xff);
+                hash *= 0x100000001b3L;
+            }
+            return hash;
+        }
+    }
+}
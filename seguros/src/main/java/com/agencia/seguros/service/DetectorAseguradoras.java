@@ -0,0 +1,221 @@
+package com.agencia.seguros.service;
+
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Detección de aseguradoras por alias con un autómata Aho-Corasick sobre tokens normalizados.
+ * <p>
+ * La tabla de alias se compila una sola vez y el texto se recorre en una única pasada,
+ * en lugar de buscar cada alias por separado. Si el texto menciona varias aseguradoras
+ * gana la que aparece primero en la tabla (mismo criterio que el recorrido alias por alias).
+ * Al reemplazar los alias el autómata se recompila y se publica de forma atómica.
+ */
+@Component
+public class DetectorAseguradoras {
+
+    static final Map<String, List<String>> ASEGURADORA_ALIASES = new LinkedHashMap<>() {{
+        put("Allianz", List.of("allianz"));
+        put("Berkley", List.of("berkley"));
+        put("Chubb", List.of("chubb"));
+        put("Cooperación", List.of("cooperacion", "cooperacion seguros"));
+        put("El Norte", List.of("el norte"));
+        put("Federación Patronal", List.of("federacion patronal", "federacion", "federación"));
+        put("HDI", List.of("hdi"));
+        put("Instituto Autárquico", List.of("instituto autarquico", "instituto autarquico provincial", "instituto seguro"));
+        put("La Caja", List.of(
+                "la caja",
+                "lacaja",
+                "caja de seguros",
+                "caja de seguros sa",
+                "caja de seguros s a",
+                "caja de seguros s.a"
+        ));
+        put("La Perseverancia", List.of("la perseverancia", "perseverancia"));
+        put("La Segunda", List.of("la segunda"));
+        put("Mapfre", List.of("mapfre"));
+        put("Meridional", List.of("meridional"));
+        put("Mercantil Andina", List.of("mercantil andina"));
+        put("Nación", List.of("nacion", "nación"));
+        put("Nativa", List.of("nativa"));
+        put("Orbis", List.of("orbis"));
+        put("Parana", List.of("parana", "paraná"));
+        put("Providencia", List.of("providencia"));
+        put("Provincia Seguros", List.of("provincia seguros"));
+        put("Rio Uruguay", List.of("rio uruguay", "río uruguay"));
+        put("Rivadavia", List.of("rivadavia"));
+        put("San Cristobal", List.of("san cristobal", "san cristóbal"));
+        put("Sancor Seguros", List.of("sancor", "sancor seguros"));
+        put("Segurcoop", List.of("segurcoop"));
+        put("Seguro Metal", List.of("seguro metal"));
+        put("Sura", List.of("sura"));
+        put("Swiss Medical", List.of("swiss medical", "swissmedical"));
+        put("Triunfo", List.of("triunfo"));
+        put("Victoria", List.of("victoria"));
+        put("Zurich / ex Qbe", List.of("zurich", "qbe"));
+        put("Boston", List.of("boston"));
+    }};
+
+    private volatile Automata automata;
+
+    public DetectorAseguradoras() {
+        reemplazarAliases(ASEGURADORA_ALIASES);
+    }
+
+    /**
+     * Devuelve el nombre canónico de la aseguradora mencionada en el texto, o null.
+     */
+    public String detectar(String texto) {
+        if (texto == null || texto.isBlank()) return null;
+        return automata.buscar(texto);
+    }
+
+    /**
+     * Reemplaza la tabla de alias (nombre canónico -> alias, en orden de prioridad)
+     * y recompila el autómata. Las búsquedas en curso terminan con el autómata anterior.
+     * La llama {@link CatalogoAseguradoras} cada vez que recarga las aseguradoras de la base.
+     */
+    public synchronized void reemplazarAliases(Map<String, List<String>> aliases) {
+        Map<String, List<String>> copia = new LinkedHashMap<>();
+        aliases.forEach((nombre, lista) -> copia.put(nombre, List.copyOf(lista)));
+        this.automata = new Automata(Collections.unmodifiableMap(copia));
+    }
+
+    public Map<String, List<String>> getAliases() {
+        return automata.aliases;
+    }
+
+    /**
+     * Recorre el texto normalizado (minúsculas, sin tildes, solo [a-z0-9]) y entrega cada token.
+     * Equivale a partir por espacios el resultado de la normalización de detección.
+     */
+    static void tokenizar(String input, Consumer<String> destino) {
+        String texto = Normalizer.normalize(input.toLowerCase(Locale.ROOT), Normalizer.Form.NFD);
+        StringBuilder token = new StringBuilder(16);
+
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')) {
+                token.append(c);
+            } else if (!esMarca(c) && token.length() > 0) {
+                destino.accept(token.toString());
+                token.setLength(0);
+            }
+        }
+        if (token.length() > 0) {
+            destino.accept(token.toString());
+        }
+    }
+
+    private static boolean esMarca(char c) {
+        int tipo = Character.getType(c);
+        return tipo == Character.NON_SPACING_MARK
+                || tipo == Character.ENCLOSING_MARK
+                || tipo == Character.COMBINING_SPACING_MARK;
+    }
+
+    /**
+     * Autómata inmutable: cada estado es un prefijo de alias (en tokens); la salida de un
+     * estado es la mejor prioridad (índice en la tabla) entre los alias que terminan en él
+     * o en sus sufijos.
+     */
+    private static final class Automata {
+
+        private static final int SIN_SALIDA = Integer.MAX_VALUE;
+
+        private final Map<String, List<String>> aliases;
+        private final String[] nombres;
+        private final List<Map<String, Integer>> transiciones = new ArrayList<>();
+        private final List<Integer> fallos = new ArrayList<>();
+        private final List<Integer> salidas = new ArrayList<>();
+
+        private Automata(Map<String, List<String>> aliases) {
+            this.aliases = aliases;
+            this.nombres = aliases.keySet().toArray(new String[0]);
+            nuevoEstado();
+
+            int prioridad = 0;
+            for (List<String> lista : aliases.values()) {
+                for (String alias : lista) {
+                    agregar(alias, prioridad);
+                }
+                prioridad++;
+            }
+            construirFallos();
+        }
+
+        private int nuevoEstado() {
+            transiciones.add(new HashMap<>());
+            fallos.add(0);
+            salidas.add(SIN_SALIDA);
+            return transiciones.size() - 1;
+        }
+
+        private void agregar(String alias, int prioridad) {
+            List<String> tokens = new ArrayList<>();
+            tokenizar(alias, tokens::add);
+            if (tokens.isEmpty()) return;
+
+            int estado = 0;
+            for (String token : tokens) {
+                Integer siguiente = transiciones.get(estado).get(token);
+                if (siguiente == null) {
+                    siguiente = nuevoEstado();
+                    transiciones.get(estado).put(token, siguiente);
+                }
+                estado = siguiente;
+            }
+            salidas.set(estado, Math.min(salidas.get(estado), prioridad));
+        }
+
+        private void construirFallos() {
+            ArrayDeque<Integer> cola = new ArrayDeque<>(transiciones.get(0).values());
+
+            while (!cola.isEmpty()) {
+                int estado = cola.poll();
+                for (Map.Entry<String, Integer> t : transiciones.get(estado).entrySet()) {
+                    int hijo = t.getValue();
+                    int fallo = fallos.get(estado);
+                    while (fallo != 0 && !transiciones.get(fallo).containsKey(t.getKey())) {
+                        fallo = fallos.get(fallo);
+                    }
+                    Integer destino = transiciones.get(fallo).get(t.getKey());
+                    int falloHijo = (destino != null && destino != hijo) ? destino : 0;
+
+                    fallos.set(hijo, falloHijo);
+                    salidas.set(hijo, Math.min(salidas.get(hijo), salidas.get(falloHijo)));
+                    cola.add(hijo);
+                }
+            }
+        }
+
+        private String buscar(String texto) {
+            int[] estado = {0};
+            int[] mejor = {SIN_SALIDA};
+
+            tokenizar(texto, token -> {
+                if (mejor[0] == 0) return; // ya está la de mayor prioridad
+
+                int actual = estado[0];
+                Integer siguiente;
+                while ((siguiente = transiciones.get(actual).get(token)) == null && actual != 0) {
+                    actual = fallos.get(actual);
+                }
+                estado[0] = (siguiente != null) ? siguiente : 0;
+                mejor[0] = Math.min(mejor[0], salidas.get(estado[0]));
+            });
+
+            return mejor[0] == SIN_SALIDA ? null : nombres[mejor[0]];
+        }
+    }
+}
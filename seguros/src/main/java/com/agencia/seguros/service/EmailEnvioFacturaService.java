@@ -59,7 +59,11 @@ public class EmailEnvioFacturaService {
         if (factura.getNombreArchivo() != null) {
             Path pdfOriginal = carpeta.resolve(factura.getNombreArchivo());
             if (Files.exists(pdfOriginal)) {
-                helper.addAttachment(factura.getNombreArchivo(), pdfOriginal.toFile());
+                // en disco el PDF se llama por su hash; al destinatario se le manda un nombre legible
+                String nombreAdjunto = (factura.getNumeroFactura() != null)
+                        ? "Factura_" + factura.getNumeroFactura() + ".pdf"
+                        : factura.getNombreArchivo();
+                helper.addAttachment(nombreAdjunto, pdfOriginal.toFile());
             }
         }
 
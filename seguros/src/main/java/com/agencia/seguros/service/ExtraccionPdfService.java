@@ -0,0 +1,605 @@
+package com.agencia.seguros.service;
+
+import com.agencia.seguros.config.ExtraccionProperties;
+import jakarta.annotation.PreDestroy;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.apache.pdfbox.text.PDFTextStripperByArea;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.awt.geom.Rectangle2D;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Extracción de datos de un PDF de factura en una sola pasada:
+ * el documento se carga una vez y cada layout de texto (orden de flujo y
+ * ordenado por posición) se genera una sola vez.
+ * <p>
+ * El texto se limita según el perfil de extracción (primeras N páginas o regiones);
+ * solo si faltan campos requeridos se hace una segunda pasada sobre el documento completo.
+ * El resultado y el texto leído quedan en el cache de extracción ({@link CacheExtraccionService}).
+ */
+@Service
+public class ExtraccionPdfService {
+
+    private static final long MB = 1024L * 1024L;
+
+    private final DetectorAseguradoras detectorAseguradoras;
+    private final ExtraccionProperties extraccionProperties;
+    private final ReglasExtraccionService reglasExtraccionService;
+    private final CacheExtraccionService cacheExtraccionService;
+
+    // Hilos propios para poder abandonar una extracción que excede el presupuesto.
+    // Un hilo abandonado sigue ocupando su lugar hasta que PDFBox termina: los lugares
+    // (limites.hilos) acotan los hilos vivos aunque se cuelguen varios documentos.
+    private final ExecutorService ejecutor;
+    private final Semaphore lugares;
+
+    @Autowired
+    public ExtraccionPdfService(DetectorAseguradoras detectorAseguradoras,
+                                ExtraccionProperties extraccionProperties,
+                                ReglasExtraccionService reglasExtraccionService,
+                                CacheExtraccionService cacheExtraccionService) {
+        this.detectorAseguradoras = detectorAseguradoras;
+        this.extraccionProperties = extraccionProperties;
+        this.reglasExtraccionService = reglasExtraccionService;
+        this.cacheExtraccionService = cacheExtraccionService;
+
+        int hilos = Math.max(1, extraccionProperties.getLimites().getHilos());
+        this.lugares = new Semaphore(hilos);
+        this.ejecutor = Executors.newFixedThreadPool(hilos, r -> {
+            Thread t = new Thread(r, "extraccion-pdf");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Sin cache de extracción (benchmarks y herramientas que no levantan la base).
+     */
+    public ExtraccionPdfService(DetectorAseguradoras detectorAseguradoras,
+                                ExtraccionProperties extraccionProperties,
+                                ReglasExtraccionService reglasExtraccionService) {
+        this(detectorAseguradoras, extraccionProperties, reglasExtraccionService, null);
+    }
+
+    /**
+     * Extrae con el perfil configurado en app.extraccion.perfil.
+     *
+     * @throws IOException si el PDF no se puede abrir o leer (el llamador decide si reintenta)
+     */
+    public ResultadoExtraccion extraer(Path pdfPath) throws IOException {
+        return extraer(pdfPath, null, null);
+    }
+
+    public ResultadoExtraccion extraer(Path pdfPath, String nombrePerfil) throws IOException {
+        return extraer(pdfPath, nombrePerfil, null);
+    }
+
+    /**
+     * Extrae con el perfil indicado (null = app.extraccion.perfil), dentro de los límites
+     * de app.extraccion.limites. La extracción corre en un hilo aparte; si excede el
+     * presupuesto de tiempo se abandona.
+     * <p>
+     * Con el cache habilitado, un contenido ya extraído con las reglas vigentes no se vuelve
+     * a parsear, y con otras reglas se re-parsea el texto guardado sin abrir el PDF.
+     *
+     * @param hashContenido SHA-256 del archivo si el llamador ya lo tiene (si no, se calcula)
+     * @throws PdfRechazadoException si el PDF excede tamaño, páginas o tiempo
+     */
+    public ResultadoExtraccion extraer(Path pdfPath, String nombrePerfil, String hashContenido) throws IOException {
+        String perfilUsado = (nombrePerfil != null) ? nombrePerfil : extraccionProperties.getPerfil();
+        ExtraccionProperties.Perfil perfil = extraccionProperties.getPerfiles().get(perfilUsado);
+        if (perfil == null) {
+            throw new IllegalArgumentException("Perfil de extracción inexistente: " + perfilUsado);
+        }
+
+        ExtraccionProperties.Limites limites = extraccionProperties.getLimites();
+        long tamanio = Files.size(pdfPath);
+        if (limites.getTamanioMaximoMb() > 0 && tamanio > limites.getTamanioMaximoMb() * MB) {
+            throw new PdfRechazadoException("PDF de " + (tamanio / MB) + " MB, máximo " + limites.getTamanioMaximoMb() + " MB");
+        }
+
+        // Las mismas reglas para toda la extracción (y para la entrada de cache)
+        ReglasExtraccion reglas = reglasExtraccionService.actuales();
+
+        boolean usarCache = cacheExtraccionService != null && cacheExtraccionService.habilitado();
+        String hash = (usarCache && hashContenido == null) ? AlmacenPdfService.hash(pdfPath) : hashContenido;
+        CacheExtraccionService.Entrada cacheada = usarCache ? cacheExtraccionService.buscar(hash, perfilUsado) : null;
+
+        if (cacheada != null && cacheada.versionReglas().equals(reglas.version())) {
+            cacheExtraccionService.registrarAcierto(false);
+            System.out.println("Extracción PDF " + pdfPath.getFileName() + " [" + perfilUsado + "]: desde cache");
+            return cacheada.resultado();
+        }
+        Lectura previa = (cacheada != null) ? cacheada.lectura() : null;
+
+        Future<Extraccion> futuro = enviar(pdfPath, () -> extraerSinPresupuesto(pdfPath, perfilUsado, perfil, limites, reglas, previa));
+        Extraccion extraccion;
+        try {
+            int presupuesto = limites.getPresupuestoSegundos();
+            extraccion = (presupuesto > 0) ? futuro.get(presupuesto, TimeUnit.SECONDS) : futuro.get();
+
+        } catch (TimeoutException e) {
+            // PDFBox no atiende interrupciones: el hilo se abandona y termina cuando pueda
+            futuro.cancel(true);
+            throw new PdfRechazadoException("La extracción superó el presupuesto de " + limites.getPresupuestoSegundos() + "s");
+        } catch (InterruptedException e) {
+            futuro.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Extracción interrumpida: " + pdfPath.getFileName());
+        } catch (ExecutionException e) {
+            Throwable causa = e.getCause();
+            if (causa instanceof IOException io) throw io;
+            if (causa instanceof RuntimeException re) throw re;
+            throw new IOException(causa);
+        }
+
+        if (usarCache) {
+            if (previa != null) {
+                cacheExtraccionService.registrarAcierto(true);
+            }
+            cacheExtraccionService.guardar(hash, perfilUsado, reglas.version(), extraccion.resultado(), extraccion.lectura());
+        }
+        return extraccion.resultado();
+    }
+
+    /**
+     * Toma un lugar de extracción (esperando a lo sumo el presupuesto) y lanza la tarea.
+     * El lugar lo libera la tarea al terminar, no el llamador: si la extracción se abandona
+     * por tiempo, el hilo sigue contando hasta que termina de verdad.
+     *
+     * @throws IOException si todos los lugares siguen ocupados: es falta de capacidad, no un
+     *                     problema del PDF, así que el llamador lo reintenta (no va a cuarentena)
+     */
+    private Future<Extraccion> enviar(Path pdfPath, Callable<Extraccion> tarea) throws IOException {
+        ExtraccionProperties.Limites limites = extraccionProperties.getLimites();
+        int espera = Math.max(1, limites.getPresupuestoSegundos());
+        try {
+            if (!lugares.tryAcquire(espera, TimeUnit.SECONDS)) {
+                throw new IOException("Sin lugar para extraer: " + limites.getHilos()
+                        + " extracciones en curso o abandonadas por presupuesto");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Extracción interrumpida: " + pdfPath.getFileName());
+        }
+
+        try {
+            return ejecutor.submit(() -> {
+                try {
+                    return tarea.call();
+                } finally {
+                    lugares.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            lugares.release();
+            throw new InterruptedIOException("Servicio de extracción detenido: " + pdfPath.getFileName());
+        }
+    }
+
+    /**
+     * Extracción escalonada de un adjunto: primero el nombre del archivo y el asunto
+     * (reglas nombreArchivo/asunto, sin abrir el PDF). Si con eso están los campos
+     * requeridos del perfil, el número de siniestro y la aseguradora, no se lee el PDF; si no, se extrae el PDF y
+     * se completan los campos que falten. Cuando hay valor en ambos y no coinciden se
+     * loguea la discrepancia y gana el del PDF.
+     */
+    public ResultadoExtraccion extraerAdjunto(Path pdfPath, String hashContenido,
+                                              String nombreOriginal, String asunto) throws IOException {
+        if (!extraccionProperties.isPreParseo()) {
+            return extraer(pdfPath, null, hashContenido);
+        }
+
+        long inicio = System.nanoTime();
+        ReglasExtraccion reglas = reglasExtraccionService.actuales();
+
+        Map<String, String> previos = new HashMap<>();
+        LocalDate fechaPrevia = null;
+        if (nombreOriginal != null) {
+            previos.putAll(extraerConModo(nombreOriginal, reglas.nombreArchivo()));
+            fechaPrevia = extraerFechaFactura(nombreOriginal, reglas.nombreArchivo());
+        }
+        if (asunto != null) {
+            extraerConModo(asunto, reglas.asunto()).forEach(previos::putIfAbsent);
+            if (fechaPrevia == null) {
+                fechaPrevia = extraerFechaFactura(asunto, reglas.asunto());
+            }
+        }
+        String aseguradoraPrevia = detectorAseguradoras.detectar(asunto);
+
+        ExtraccionProperties.Perfil perfil = extraccionProperties.getPerfiles().get(extraccionProperties.getPerfil());
+        // El siniestro no siempre es requerido por el perfil, pero sin el PDF no habría otra
+        // fuente: sin él en el nombre o el asunto se lee el PDF
+        if (perfil != null && aseguradoraPrevia != null && previos.containsKey("numeroSiniestro")
+                && !faltanRequeridos(perfil, fechaPrevia, previos)) {
+            ResultadoExtraccion.Tiempos tiempos = new ResultadoExtraccion.Tiempos(
+                    Duration.ZERO, Duration.ZERO, Duration.ofNanos(System.nanoTime() - inicio), Duration.ZERO);
+            System.out.println("Extracción adjunto " + nombreOriginal + ": por nombre y asunto, sin abrir el PDF");
+            return new ResultadoExtraccion(
+                    fechaPrevia,
+                    previos.get("numeroFactura"),
+                    previos.get("numeroSiniestro"),
+                    previos.get("numeroOrden"),
+                    aseguradoraPrevia,
+                    tiempos
+            );
+        }
+
+        ResultadoExtraccion pdf = extraer(pdfPath, null, hashContenido);
+        return new ResultadoExtraccion(
+                validar("fechaFactura", pdf.fechaFactura(), fechaPrevia, nombreOriginal),
+                validar("numeroFactura", pdf.numeroFactura(), previos.get("numeroFactura"), nombreOriginal),
+                validar("numeroSiniestro", pdf.numeroSiniestro(), previos.get("numeroSiniestro"), nombreOriginal),
+                validar("numeroOrden", pdf.numeroOrden(), previos.get("numeroOrden"), nombreOriginal),
+                validar("aseguradora", pdf.aseguradora(), aseguradoraPrevia, nombreOriginal),
+                pdf.tiempos()
+        );
+    }
+
+    /**
+     * El valor del PDF si lo hay (avisando si contradice al del nombre/asunto), si no el previo.
+     */
+    private static <T> T validar(String campo, T delPdf, T previo, String nombreOriginal) {
+        if (delPdf == null) {
+            return previo;
+        }
+        if (previo != null && !previo.equals(delPdf)) {
+            System.out.println("Discrepancia en " + campo + " de " + nombreOriginal
+                    + ": nombre/asunto=" + previo + ", PDF=" + delPdf + " (se usa el del PDF)");
+        }
+        return delPdf;
+    }
+
+    @PreDestroy
+    public void detener() {
+        ejecutor.shutdownNow();
+    }
+
+    /**
+     * Texto leído de un documento: el del perfil y, si hizo falta la pasada completa, el
+     * de todo el documento (null si no).
+     */
+    record Lectura(Textos acotados, Textos completos) {
+    }
+
+    private record Extraccion(ResultadoExtraccion resultado, Lectura lectura) {
+    }
+
+    /**
+     * @param previa texto ya leído de este contenido (cache), o null para leer el PDF
+     */
+    private Extraccion extraerSinPresupuesto(Path pdfPath,
+                                             String nombrePerfil,
+                                             ExtraccionProperties.Perfil perfil,
+                                             ExtraccionProperties.Limites limites,
+                                             ReglasExtraccion reglasVigentes,
+                                             Lectura previa) throws IOException {
+        try (Documento documento = new Documento(pdfPath, limites)) {
+            long inicioTexto = System.nanoTime();
+            Textos acotados = (previa != null) ? previa.acotados() : extraerTextos(documento.abrir(), perfil);
+            long finTexto = System.nanoTime();
+
+            // La aseguradora define qué reglas se aplican (propias + genéricas)
+            String aseguradora = detectorAseguradoras.detectar(acotados.flujo);
+            long finDeteccion = System.nanoTime();
+
+            ReglasExtraccion.Campos reglas = reglasVigentes.para(aseguradora);
+            LocalDate fechaFactura = extraerFechaFactura(acotados.flujo, reglas);
+            Map<String, String> datos = extraerDatos(acotados.ordenado, acotados.flujo, reglas);
+            long finParseo = System.nanoTime();
+
+            long duracionTexto = finTexto - inicioTexto;
+            long duracionDeteccion = finDeteccion - finTexto;
+            long duracionParseo = finParseo - finDeteccion;
+            Textos completos = null;
+
+            if (!acotados.completo && faltanRequeridos(perfil, fechaFactura, datos)) {
+                // Fallback: todo el documento; lo ya encontrado en la pasada acotada tiene prioridad
+                long inicioCompleto = System.nanoTime();
+                completos = (previa != null && previa.completos() != null)
+                        ? previa.completos()
+                        : extraerTextos(documento.abrir(), null);
+                long finTextoCompleto = System.nanoTime();
+
+                if (aseguradora == null) {
+                    aseguradora = detectorAseguradoras.detectar(completos.flujo);
+                    reglas = reglasVigentes.para(aseguradora);
+                }
+                long finDeteccionCompleta = System.nanoTime();
+
+                if (fechaFactura == null) {
+                    fechaFactura = extraerFechaFactura(completos.flujo, reglas);
+                }
+                extraerDatos(completos.ordenado, completos.flujo, reglas).forEach(datos::putIfAbsent);
+
+                duracionTexto += finTextoCompleto - inicioCompleto;
+                duracionDeteccion += finDeteccionCompleta - finTextoCompleto;
+                duracionParseo += System.nanoTime() - finDeteccionCompleta;
+            }
+
+            // La carga (si la hubo) ocurrió dentro de las etapas de texto
+            ResultadoExtraccion.Tiempos tiempos = new ResultadoExtraccion.Tiempos(
+                    Duration.ofNanos(documento.nanosCarga),
+                    Duration.ofNanos(duracionTexto - documento.nanosCarga),
+                    Duration.ofNanos(duracionParseo),
+                    Duration.ofNanos(duracionDeteccion)
+            );
+
+            if (aseguradora != null) {
+                System.out.println("Aseguradora detectada en PDF: " + aseguradora);
+            }
+            System.out.println("Extracción PDF " + pdfPath.getFileName() + " [" + nombrePerfil
+                    + (completos != null ? " + pasada completa" : "")
+                    + (previa != null ? ", texto desde cache" : "") + "]: " + tiempos);
+
+            ResultadoExtraccion resultado = new ResultadoExtraccion(
+                    fechaFactura,
+                    datos.get("numeroFactura"),
+                    datos.get("numeroSiniestro"),
+                    datos.get("numeroOrden"),
+                    aseguradora,
+                    tiempos
+            );
+
+            // Se conserva el texto completo ya leído aunque esta vez no haya hecho falta
+            if (completos == null && previa != null) {
+                completos = previa.completos();
+            }
+            return new Extraccion(resultado, new Lectura(acotados, completos));
+        }
+    }
+
+    /**
+     * El PDF se carga recién cuando hace falta su texto (con texto del cache puede no hacer falta).
+     */
+    private final class Documento implements Closeable {
+
+        private final Path ruta;
+        private final ExtraccionProperties.Limites limites;
+        private PDDocument doc;
+        private long nanosCarga;
+
+        Documento(Path ruta, ExtraccionProperties.Limites limites) {
+            this.ruta = ruta;
+            this.limites = limites;
+        }
+
+        PDDocument abrir() throws IOException {
+            if (doc == null) {
+                long inicio = System.nanoTime();
+                doc = PDDocument.load(ruta.toFile(), memoria(limites));
+                nanosCarga = System.nanoTime() - inicio;
+
+                if (limites.getPaginasMaximas() > 0 && doc.getNumberOfPages() > limites.getPaginasMaximas()) {
+                    throw new PdfRechazadoException("PDF de " + doc.getNumberOfPages() + " páginas, máximo " + limites.getPaginasMaximas());
+                }
+            }
+            return doc;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (doc != null) {
+                doc.close();
+            }
+        }
+    }
+
+    /**
+     * Hasta memoriaMb en heap; el resto del documento va a archivos temporales.
+     */
+    private MemoryUsageSetting memoria(ExtraccionProperties.Limites limites) {
+        if (limites.getMemoriaMb() <= 0) {
+            return MemoryUsageSetting.setupMainMemoryOnly();
+        }
+        MemoryUsageSetting setting = MemoryUsageSetting.setupMixed(limites.getMemoriaMb() * MB);
+        if (limites.getCarpetaTemporal() != null && !limites.getCarpetaTemporal().isBlank()) {
+            setting.setTempDir(new File(limites.getCarpetaTemporal()));
+        }
+        return setting;
+    }
+
+    // ===== texto =====
+
+    /**
+     * Texto en orden de flujo (fecha, detección de aseguradora, modo alternativo) y
+     * ordenado por posición (modo principal para los números). completo indica si
+     * se leyó todo el documento.
+     */
+    record Textos(String flujo, String ordenado, boolean completo) {
+    }
+
+    /**
+     * @param perfil null para leer el documento completo
+     */
+    private Textos extraerTextos(PDDocument doc, ExtraccionProperties.Perfil perfil) throws IOException {
+        if (perfil != null && !perfil.getRegiones().isEmpty()) {
+            String texto = extraerRegiones(doc, perfil.getRegiones());
+            return new Textos(texto, texto, false);
+        }
+
+        int totalPaginas = doc.getNumberOfPages();
+        int hasta = (perfil == null || perfil.getPaginas() <= 0)
+                ? totalPaginas
+                : Math.min(perfil.getPaginas(), totalPaginas);
+
+        PDFTextStripper stripperFlujo = new PDFTextStripper();
+        stripperFlujo.setEndPage(hasta);
+        String textoFlujo = stripperFlujo.getText(doc);
+
+        PDFTextStripper stripperOrdenado = new PDFTextStripper();
+        stripperOrdenado.setSortByPosition(true);
+        stripperOrdenado.setEndPage(hasta);
+        String textoOrdenado = stripperOrdenado.getText(doc);
+
+        return new Textos(textoFlujo, textoOrdenado, hasta >= totalPaginas);
+    }
+
+    private String extraerRegiones(PDDocument doc, List<ExtraccionProperties.Region> regiones) throws IOException {
+        // Una pasada por página con todas sus regiones
+        Map<Integer, List<ExtraccionProperties.Region>> porPagina = new TreeMap<>();
+        for (ExtraccionProperties.Region region : regiones) {
+            porPagina.computeIfAbsent(region.getPagina(), p -> new ArrayList<>()).add(region);
+        }
+
+        StringBuilder texto = new StringBuilder();
+        for (Map.Entry<Integer, List<ExtraccionProperties.Region>> entry : porPagina.entrySet()) {
+            int indice = entry.getKey() - 1;
+            if (indice < 0 || indice >= doc.getNumberOfPages()) {
+                continue;
+            }
+
+            PDFTextStripperByArea stripper = new PDFTextStripperByArea();
+            stripper.setSortByPosition(true);
+            for (ExtraccionProperties.Region region : entry.getValue()) {
+                stripper.addRegion(region.getNombre(),
+                        new Rectangle2D.Float(region.getX(), region.getY(), region.getAncho(), region.getAlto()));
+            }
+            stripper.extractRegions(doc.getPage(indice));
+
+            for (ExtraccionProperties.Region region : entry.getValue()) {
+                texto.append(stripper.getTextForRegion(region.getNombre())).append('\n');
+            }
+        }
+        return texto.toString();
+    }
+
+    private boolean faltanRequeridos(ExtraccionProperties.Perfil perfil, LocalDate fechaFactura, Map<String, String> datos) {
+        for (String campo : perfil.getCamposRequeridos()) {
+            boolean presente = "fechaFactura".equals(campo) ? fechaFactura != null : datos.containsKey(campo);
+            if (!presente) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // ===== fecha =====
+
+    private LocalDate extraerFechaFactura(String texto, ReglasExtraccion.Campos reglas) {
+        if (texto == null) return null;
+
+        for (Pattern pattern : reglas.fechaFactura()) {
+            Matcher matcher = pattern.matcher(texto);
+            if (matcher.find()) {
+                try {
+                    int dia = Integer.parseInt(matcher.group(1));
+                    int mes = Integer.parseInt(matcher.group(2));
+                    int anio = Integer.parseInt(matcher.group(3));
+                    return LocalDate.of(anio, mes, dia);
+                } catch (Exception e) {
+                    System.out.println("No se pudo extraer fecha del PDF: " + e.getMessage());
+                }
+            }
+        }
+        return null;
+    }
+
+    // ===== números =====
+
+    private Map<String, String> extraerDatos(String textoOrdenado, String textoFlujo, ReglasExtraccion.Campos reglas) {
+        Map<String, String> datos1 = extraerConModo(textoOrdenado, reglas);
+        // Si faltan campos importantes, probamos modo alternativo
+        if (!datos1.containsKey("numeroFactura") || !datos1.containsKey("numeroOrden") || !datos1.containsKey("numeroSiniestro")) {
+            Map<String, String> datos2 = extraerConModo(textoFlujo, reglas);
+            // quedate con el que tenga más datos
+            return (datos2.size() > datos1.size()) ? datos2 : datos1;
+        }
+        return datos1;
+    }
+
+    Map<String, String> extraerConModo(String texto, ReglasExtraccion.Campos reglas) {
+        Map<String, String> datos = new HashMap<>();
+        if (texto == null) return datos;
+
+        texto = normalizar(texto);
+
+        buscar(texto, reglas.numeroFactura()).ifPresent(v -> datos.put("numeroFactura", v));
+        buscar(texto, reglas.numeroSiniestro()).ifPresent(v -> datos.put("numeroSiniestro", v));
+        buscar(texto, reglas.numeroOrden()).ifPresent(v -> datos.put("numeroOrden", v));
+
+        return datos;
+    }
+
+    /**
+     * Primer patrón que encuentra algo; el valor son sus grupos unidos por "-".
+     */
+    private static Optional<String> buscar(String texto, List<Pattern> patrones) {
+        for (Pattern pattern : patrones) {
+            Matcher matcher = pattern.matcher(texto);
+            if (!matcher.find()) {
+                continue;
+            }
+            StringBuilder valor = new StringBuilder();
+            for (int g = 1; g <= matcher.groupCount(); g++) {
+                String grupo = matcher.group(g);
+                if (grupo == null) continue;
+                if (valor.length() > 0) valor.append('-');
+                valor.append(grupo);
+            }
+            return Optional.of(valor.toString());
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Normalización en una sola pasada (equivale a NFKC + unificar guiones + espacios):
+     * NFKC solo si hace falta; guiones tipográficos a '-', NBSP/tab/form feed/CR a espacio
+     * y secuencias de espacios a uno solo. Los saltos de línea se conservan.
+     */
+    static String normalizar(String texto) {
+        if (!Normalizer.isNormalized(texto, Normalizer.Form.NFKC)) {
+            texto = Normalizer.normalize(texto, Normalizer.Form.NFKC);
+        }
+
+        StringBuilder sb = new StringBuilder(texto.length());
+        boolean espacioPrevio = false;
+
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            switch (c) {
+                case '\u00A0', '\t', '\f', '\r' -> c = ' ';
+                case '\u2212', '\u2010', '\u2011', '\u2013', '\u2014' -> c = '-';
+                default -> { }
+            }
+
+            if (c == ' ') {
+                if (espacioPrevio) continue;
+                espacioPrevio = true;
+            } else {
+                espacioPrevio = false;
+            }
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,46 @@
+package com.agencia.seguros.service;
+
+import com.agencia.seguros.model.Factura;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Mantiene el índice de búsqueda ({@link IndiceBusquedaFacturas}) cuando una factura se
+ * guarda por JPA. Corre dentro de la misma transacción y solo si cambió algún número.
+ */
+@Component
+public class FacturaListener {
+
+    // Diferido: el listener se crea junto con el EntityManagerFactory
+    private final ObjectProvider<IndiceBusquedaFacturas> indice;
+
+    public FacturaListener(ObjectProvider<IndiceBusquedaFacturas> indice) {
+        this.indice = indice;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void facturaGuardada(Factura factura) {
+        IndiceBusquedaFacturas i = indice.getIfAvailable();
+        if (i == null || !factura.numerosCambiaron()) {
+            return;
+        }
+
+        i.indexar(List.of(new IndiceBusquedaFacturas.Numeros(factura.getId(),
+                factura.getNumeroFactura(), factura.getNumeroSiniestro(), factura.getNumeroOrden())));
+        factura.marcarNumerosIndexados();
+    }
+
+    @PostRemove
+    public void facturaEliminada(Factura factura) {
+        IndiceBusquedaFacturas i = indice.getIfAvailable();
+        if (i != null && factura.getId() != null) {
+            i.eliminar(factura.getId());
+        }
+    }
+}
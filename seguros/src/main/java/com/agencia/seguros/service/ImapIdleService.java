@@ -0,0 +1,188 @@
+package com.agencia.seguros.service;
+
+import com.agencia.seguros.config.CorreoImapProperties;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.Folder;
+import jakarta.mail.Store;
+import jakarta.mail.event.MessageCountAdapter;
+import jakarta.mail.event.MessageCountEvent;
+import org.eclipse.angus.mail.imap.IMAPFolder;
+import org.eclipse.angus.mail.imap.IMAPStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Modo push (correo.imap.modo=IDLE): mantiene una carpeta IMAP abierta y usa IDLE
+ * para enterarse de los correos nuevos sin esperar al próximo ciclo de polling.
+ * <p>
+ * El IDLE se corta y renueva periódicamente (antes del timeout del servidor).
+ * Si el servidor no soporta IDLE, o mientras la conexión está caída, sigue
+ * funcionando el polling de {@link MailReaderService#leerNuevosCorreos()}.
+ */
+@Service
+public class ImapIdleService {
+
+    private final CorreoImapProperties props;
+    private final MailReaderService mailReaderService;
+
+    @Value("${app.mail.enabled:false}")
+    private boolean mailEnabled;
+
+    private final ScheduledExecutorService renovador = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "imap-idle-renovador");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private volatile boolean detenido;
+    private volatile IMAPFolder folderActual;
+    private Thread hilo;
+
+    public ImapIdleService(CorreoImapProperties props, MailReaderService mailReaderService) {
+        this.props = props;
+        this.mailReaderService = mailReaderService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() {
+        if (!mailEnabled || !props.isModoIdle()) {
+            return;
+        }
+
+        hilo = new Thread(this::bucle, "imap-idle");
+        hilo.setDaemon(true);
+        hilo.start();
+    }
+
+    @PreDestroy
+    public void detener() {
+        detenido = true;
+        renovador.shutdownNow();
+        cerrarFolder(folderActual);
+        if (hilo != null) {
+            hilo.interrupt();
+        }
+    }
+
+    private void bucle() {
+        while (!detenido) {
+            boolean soportaIdle = true;
+            try {
+                soportaIdle = escuchar();
+            } catch (Exception e) {
+                if (!detenido) {
+                    System.err.println("Error en modo IDLE: " + e.getMessage());
+                }
+            } finally {
+                mailReaderService.setModoPushActivo(false);
+            }
+
+            if (!soportaIdle) {
+                System.out.println("El servidor IMAP no soporta IDLE. Se continúa con polling.");
+                return;
+            }
+            if (detenido) {
+                return;
+            }
+
+            try {
+                TimeUnit.SECONDS.sleep(props.getIdleReconexionSegundos());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Abre la carpeta y queda en IDLE hasta que se cae la conexión o se detiene el servicio.
+     *
+     * @return false si el servidor no soporta IDLE
+     */
+    private boolean escuchar() throws Exception {
+        Store store = mailReaderService.abrirStore();
+        ScheduledFuture<?> renovacion = null;
+
+        try {
+            if (!(store instanceof IMAPStore imapStore) || !imapStore.hasCapability("IDLE")) {
+                return false;
+            }
+
+            IMAPFolder folder = (IMAPFolder) store.getFolder(props.getFolder());
+            folder.open(Folder.READ_WRITE);
+            folderActual = folder;
+
+            AtomicBoolean hayNuevos = new AtomicBoolean(false);
+            folder.addMessageCountListener(new MessageCountAdapter() {
+                @Override
+                public void messagesAdded(MessageCountEvent e) {
+                    hayNuevos.set(true);
+                }
+            });
+
+            // Cualquier comando corta el IDLE en curso; el bucle lo vuelve a emitir
+            int renovar = props.getIdleRenovarSegundos();
+            renovacion = renovador.scheduleWithFixedDelay(() -> renovarIdle(folder), renovar, renovar, TimeUnit.SECONDS);
+
+            mailReaderService.setModoPushActivo(true);
+            System.out.println("Modo IDLE activo en carpeta " + props.getFolder());
+
+            // La primera vuelta sincroniza lo que llegó mientras no estábamos escuchando.
+            // El aviso del listener llega por el hilo de eventos y puede demorarse, así que
+            // además se compara el conteo de la carpeta (EXISTS) antes de volver a IDLE:
+            // un correo que entró durante la sincronización ya no dispara otro aviso.
+            int conteo = -1;
+            while (!detenido && folder.isOpen()) {
+                boolean avisado = hayNuevos.getAndSet(false);
+                int conteoActual = folder.getMessageCount();
+                if (avisado || conteoActual != conteo) {
+                    conteo = conteoActual;
+                    mailReaderService.sincronizarCarpeta(folder);
+                    continue;
+                }
+                folder.idle(true);
+            }
+            return true;
+
+        } finally {
+            if (renovacion != null) {
+                renovacion.cancel(false);
+            }
+            cerrarFolder(folderActual);
+            folderActual = null;
+            try {
+                store.close();
+            } catch (Exception ignored) {
+            }
+        }
+    }
+
+    private void renovarIdle(IMAPFolder folder) {
+        try {
+            folder.doCommand(protocol -> {
+                protocol.simpleCommand("NOOP", null);
+                return null;
+            });
+        } catch (Exception e) {
+            System.err.println("No se pudo renovar IDLE: " + e.getMessage());
+        }
+    }
+
+    private void cerrarFolder(Folder folder) {
+        if (folder == null || !folder.isOpen()) {
+            return;
+        }
+        try {
+            folder.close(false);
+        } catch (Exception ignored) {
+        }
+    }
+}
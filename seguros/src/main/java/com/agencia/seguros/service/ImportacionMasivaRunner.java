@@ -0,0 +1,48 @@
+package com.agencia.seguros.service;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Modo importación: si la aplicación arranca con {@code --importar-directorio=<ruta>}
+ * importa los PDF de esa carpeta y termina (código de salida 1 si hubo errores).
+ * Se puede cortar y volver a lanzar: retoma desde el checkpoint.
+ * <p>
+ * Ejemplo: {@code java -jar seguros.jar --spring.profiles.active=prod --importar-directorio=./facturas_pdf}
+ */
+@Component
+public class ImportacionMasivaRunner implements ApplicationRunner {
+
+    static final String OPCION = "importar-directorio";
+
+    private final ImportacionMasivaService importacionMasivaService;
+    private final ConfigurableApplicationContext context;
+
+    public ImportacionMasivaRunner(ImportacionMasivaService importacionMasivaService,
+                                   ConfigurableApplicationContext context) {
+        this.importacionMasivaService = importacionMasivaService;
+        this.context = context;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        List<String> directorios = args.getOptionValues(OPCION);
+        if (directorios == null || directorios.isEmpty()) {
+            return;
+        }
+
+        int errores = 0;
+        for (String directorio : directorios) {
+            errores += importacionMasivaService.importar(Path.of(directorio)).errores();
+        }
+
+        int codigo = (errores > 0) ? 1 : 0;
+        System.exit(SpringApplication.exit(context, () -> codigo));
+    }
+}
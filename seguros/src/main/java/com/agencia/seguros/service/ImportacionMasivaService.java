@@ -0,0 +1,348 @@
+package com.agencia.seguros.service;
+
+import com.agencia.seguros.model.Aseguradora;
+import com.agencia.seguros.model.CheckpointImportacion;
+import com.agencia.seguros.model.EstadoFactura;
+import com.agencia.seguros.model.EtapaIngesta;
+import com.agencia.seguros.model.Sucursal;
+import com.agencia.seguros.repository.CheckpointImportacionRepository;
+import com.agencia.seguros.repository.FacturaRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+/**
+ * Importación masiva de un directorio de PDFs (facturas históricas) sin pasar por IMAP.
+ * <p>
+ * Los archivos se recorren en orden de ruta y por lotes: dentro de cada lote el guardado
+ * en el almacén y la extracción corren en paralelo sobre un ForkJoinPool; las facturas
+ * nuevas se insertan con un único batch JDBC y el checkpoint avanza en la misma
+ * transacción, así que una importación cortada se retoma desde el último lote confirmado.
+ * El contenido que ya tiene factura (mismo SHA-256) se saltea sin extraer.
+ * <p>
+ * Un PDF cuya extracción falla queda en ingesta_adjuntos (DEAD_LETTER, o CUARENTENA si
+ * excede los límites) para reintentarlo desde la administración. Un archivo que no se pudo
+ * leer no queda en el almacén: el checkpoint se detiene antes del primero, y la próxima
+ * corrida lo vuelve a intentar.
+ */
+@Service
+public class ImportacionMasivaService {
+
+    private static final String INSERT_FACTURA = """
+        INSERT INTO facturas (aseguradora_id, estado, asunto, nombre_archivo, hash_contenido,
+                              fecha_recepcion, fecha_factura, numero_factura, numero_siniestro, numero_orden, sucursal)
+        VALUES (:aseguradoraId, :estado, :asunto, :nombreArchivo, :hashContenido,
+                :fechaRecepcion, :fechaFactura, :numeroFactura, :numeroSiniestro, :numeroOrden, :sucursal)
+    """;
+
+    // Historial de creación para las facturas recién insertadas del lote (no tienen id en memoria)
+    private static final String INSERT_HISTORIAL = """
+        INSERT INTO historial_factura (factura_id, fecha_movimiento, tipo, detalle, usuario)
+        SELECT f.id, :fecha, 'CREACION', 'Factura importada desde directorio.', 'sistema'
+        FROM facturas f
+        WHERE f.hash_contenido IN (:hashes)
+          AND NOT EXISTS (SELECT 1 FROM historial_factura h WHERE h.factura_id = f.id)
+    """;
+
+    // Extracción fallida: queda para la administración (una sola fila por contenido)
+    private static final String INSERT_FALLIDO = """
+        INSERT INTO ingesta_adjuntos (etapa, asunto, nombre_archivo, nombre_original, hash_contenido,
+                                      fecha_recepcion, intentos, ultimo_error, fecha_actualizacion)
+        SELECT :etapa, :asunto, :nombreArchivo, :nombreOriginal, :hashContenido,
+               :fecha, 0, :error, :fecha
+        FROM DUAL
+        WHERE NOT EXISTS (SELECT 1 FROM ingesta_adjuntos i
+                          WHERE i.hash_contenido = :hashContenido AND i.etapa IN ('DEAD_LETTER', 'CUARENTENA'))
+    """;
+
+    private final AlmacenPdfService almacenPdfService;
+    private final ExtraccionPdfService extraccionPdfService;
+    private final CatalogoAseguradoras catalogoAseguradoras;
+    private final RegistroFacturaService registroFacturaService;
+    private final FacturaRepository facturaRepository;
+    private final CheckpointImportacionRepository checkpointImportacionRepository;
+    private final IndiceBusquedaFacturas indiceBusquedaFacturas;
+    private final NamedParameterJdbcTemplate jdbc;
+    private final TransactionTemplate transactionTemplate;
+
+    // 0 = un hilo por núcleo
+    @Value("${app.importacion.paralelismo:0}")
+    private int paralelismo;
+
+    @Value("${app.importacion.tamanio-lote:200}")
+    private int tamanioLote;
+
+    public ImportacionMasivaService(AlmacenPdfService almacenPdfService,
+                                    ExtraccionPdfService extraccionPdfService,
+                                    CatalogoAseguradoras catalogoAseguradoras,
+                                    RegistroFacturaService registroFacturaService,
+                                    FacturaRepository facturaRepository,
+                                    CheckpointImportacionRepository checkpointImportacionRepository,
+                                    IndiceBusquedaFacturas indiceBusquedaFacturas,
+                                    NamedParameterJdbcTemplate jdbc,
+                                    PlatformTransactionManager transactionManager) {
+        this.almacenPdfService = almacenPdfService;
+        this.extraccionPdfService = extraccionPdfService;
+        this.catalogoAseguradoras = catalogoAseguradoras;
+        this.registroFacturaService = registroFacturaService;
+        this.facturaRepository = facturaRepository;
+        this.checkpointImportacionRepository = checkpointImportacionRepository;
+        this.indiceBusquedaFacturas = indiceBusquedaFacturas;
+        this.jdbc = jdbc;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Totales de una corrida. documentosPorSegundo cuenta todos los PDF atendidos
+     * (importados, repetidos y con error).
+     */
+    public record Resumen(int importados, int repetidos, int errores, double segundos) {
+
+        public double documentosPorSegundo() {
+            return (segundos <= 0) ? 0 : (importados + repetidos + errores) / segundos;
+        }
+    }
+
+    public Resumen importar(Path directorio) throws IOException, InterruptedException {
+        Path raiz = directorio.toAbsolutePath().normalize();
+        if (!Files.isDirectory(raiz)) {
+            throw new IllegalArgumentException("No es un directorio: " + raiz);
+        }
+
+        String clave = raiz.toString();
+        CheckpointImportacion checkpoint = checkpointImportacionRepository.findByDirectorio(clave)
+                .orElseGet(() -> new CheckpointImportacion(clave));
+
+        List<Path> pendientes = listarPendientes(raiz, checkpoint.getUltimoArchivo());
+        int hilos = (paralelismo > 0) ? paralelismo : Runtime.getRuntime().availableProcessors();
+        int lote = Math.max(tamanioLote, 1);
+
+        System.out.println("Importación de " + raiz + ": " + pendientes.size() + " PDF pendientes"
+                + (checkpoint.getUltimoArchivo() != null ? " (retoma después de " + checkpoint.getUltimoArchivo() + ")" : "")
+                + ", " + hilos + " hilos, lotes de " + lote);
+
+        long inicio = System.nanoTime();
+        int importados = 0;
+        int repetidos = 0;
+        int errores = 0;
+
+        // Pasado un archivo ilegible el checkpoint no avanza más en esta corrida
+        boolean avanzarCheckpoint = true;
+
+        ForkJoinPool pool = new ForkJoinPool(hilos);
+        try {
+            for (int desde = 0; desde < pendientes.size(); desde += lote) {
+                List<Path> archivos = pendientes.subList(desde, Math.min(desde + lote, pendientes.size()));
+
+                ResultadoLote resultado = procesarLote(pool, raiz, archivos, checkpoint, avanzarCheckpoint);
+                avanzarCheckpoint = avanzarCheckpoint && !resultado.ilegibles;
+                importados += resultado.importados;
+                repetidos += resultado.repetidos;
+                errores += resultado.errores;
+
+                double segundos = (System.nanoTime() - inicio) / 1_000_000_000.0;
+                int atendidos = desde + archivos.size();
+                System.out.printf("Importación: %d/%d PDF (%d importados, %d repetidos, %d errores) - %.1f docs/s%n",
+                        atendidos, pendientes.size(), importados, repetidos, errores, atendidos / segundos);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        Resumen resumen = new Resumen(importados, repetidos, errores, (System.nanoTime() - inicio) / 1_000_000_000.0);
+        System.out.printf("Importación terminada: %d importados, %d repetidos, %d errores en %.1fs (%.1f docs/s)%n",
+                resumen.importados(), resumen.repetidos(), resumen.errores(), resumen.segundos(), resumen.documentosPorSegundo());
+        return resumen;
+    }
+
+    private List<Path> listarPendientes(Path raiz, String ultimoArchivo) throws IOException {
+        try (Stream<Path> stream = Files.walk(raiz)) {
+            return stream
+                    .filter(Files::isRegularFile)
+                    .filter(p -> p.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".pdf"))
+                    .sorted(Comparator.comparing(p -> relativo(raiz, p)))
+                    .filter(p -> ultimoArchivo == null || relativo(raiz, p).compareTo(ultimoArchivo) > 0)
+                    .toList();
+        }
+    }
+
+    private ResultadoLote procesarLote(ForkJoinPool pool, Path raiz, List<Path> archivos,
+                                       CheckpointImportacion checkpoint, boolean avanzarCheckpoint) throws InterruptedException {
+        ResultadoLote resultado = new ResultadoLote();
+
+        // 1) Guardado en el almacén + hash, en paralelo
+        List<Documento> documentos = enPool(pool, () -> archivos.parallelStream().map(this::almacenar).toList());
+
+        // 2) Lo que ya tiene factura (o se repite dentro del lote) no se vuelve a extraer
+        Set<String> hashes = new HashSet<>();
+        for (Documento d : documentos) {
+            if (d.almacenado != null) hashes.add(d.almacenado.hash());
+        }
+        Set<String> existentes = hashes.isEmpty() ? Set.of() : new HashSet<>(facturaRepository.findHashesIn(hashes));
+
+        // El checkpoint llega hasta el archivo anterior al primero que no se pudo leer
+        String ultimo = avanzarCheckpoint ? relativo(raiz, archivos.get(archivos.size() - 1)) : checkpoint.getUltimoArchivo();
+
+        Map<String, Documento> nuevos = new LinkedHashMap<>();
+        for (int i = 0; i < documentos.size(); i++) {
+            Documento d = documentos.get(i);
+            if (d.error != null) {
+                resultado.errores++;
+                System.err.println("Importación: no se pudo leer " + d.archivo + ": " + d.error);
+                if (!resultado.ilegibles && avanzarCheckpoint) {
+                    ultimo = (i > 0) ? relativo(raiz, archivos.get(i - 1)) : checkpoint.getUltimoArchivo();
+                }
+                resultado.ilegibles = true;
+            } else if (existentes.contains(d.almacenado.hash()) || nuevos.putIfAbsent(d.almacenado.hash(), d) != null) {
+                resultado.repetidos++;
+            }
+        }
+
+        // 3) Extracción en paralelo solo de contenido nuevo
+        List<Documento> extraidos = enPool(pool, () -> nuevos.values().parallelStream().map(this::extraer).toList());
+
+        List<MapSqlParameterSource> filas = new ArrayList<>();
+        List<MapSqlParameterSource> fallidos = new ArrayList<>();
+        for (Documento d : extraidos) {
+            if (d.error != null) {
+                resultado.errores++;
+                EtapaIngesta etapa = d.rechazado ? EtapaIngesta.CUARENTENA : EtapaIngesta.DEAD_LETTER;
+                System.err.println("Importación: falló la extracción de " + d.archivo + " (a " + etapa + "): " + d.error);
+                fallidos.add(parametrosFallido(raiz, d, etapa));
+            } else {
+                filas.add(parametros(d));
+            }
+        }
+        resultado.importados = filas.size();
+
+        // 4) Batch de inserts + historial + índice de búsqueda + fallidos + checkpoint en una sola transacción
+        String checkpointLote = ultimo;
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!filas.isEmpty()) {
+                jdbc.batchUpdate(INSERT_FACTURA, filas.toArray(new MapSqlParameterSource[0]));
+
+                List<String> hashesNuevos = filas.stream().map(f -> (String) f.getValue("hashContenido")).toList();
+                jdbc.update(INSERT_HISTORIAL, new MapSqlParameterSource()
+                        .addValue("fecha", Timestamp.valueOf(LocalDateTime.now()))
+                        .addValue("hashes", hashesNuevos));
+                indiceBusquedaFacturas.reindexarPorHash(hashesNuevos);
+            }
+            if (!fallidos.isEmpty()) {
+                jdbc.batchUpdate(INSERT_FALLIDO, fallidos.toArray(new MapSqlParameterSource[0]));
+            }
+
+            checkpoint.setUltimoArchivo(checkpointLote);
+            checkpoint.setImportados(checkpoint.getImportados() + filas.size());
+            checkpoint.setFechaActualizacion(LocalDateTime.now());
+            checkpointImportacionRepository.save(checkpoint);
+        });
+
+        return resultado;
+    }
+
+    private Documento almacenar(Path archivo) {
+        try (InputStream in = Files.newInputStream(archivo)) {
+            return new Documento(archivo, almacenPdfService.guardar(in), null, null, false);
+        } catch (Exception e) {
+            return new Documento(archivo, null, null, mensaje(e), false);
+        }
+    }
+
+    private Documento extraer(Documento d) {
+        try {
+            ResultadoExtraccion resultado = extraccionPdfService.extraerAdjunto(d.almacenado.ruta(), d.almacenado.hash(),
+                    d.archivo.getFileName().toString(), null);
+            return new Documento(d.archivo, d.almacenado, resultado, null, false);
+        } catch (Exception e) {
+            return new Documento(d.archivo, d.almacenado, null, mensaje(e), e instanceof PdfRechazadoException);
+        }
+    }
+
+    private MapSqlParameterSource parametrosFallido(Path raiz, Documento d, EtapaIngesta etapa) {
+        String error = (d.error.length() > 1000) ? d.error.substring(0, 1000) : d.error;
+        return new MapSqlParameterSource()
+                .addValue("etapa", etapa.name())
+                .addValue("asunto", "Importación de " + raiz.getFileName())
+                .addValue("nombreArchivo", d.almacenado.nombreArchivo())
+                .addValue("nombreOriginal", relativo(raiz, d.archivo))
+                .addValue("hashContenido", d.almacenado.hash())
+                .addValue("fecha", Timestamp.valueOf(LocalDateTime.now()))
+                .addValue("error", error);
+    }
+
+    private MapSqlParameterSource parametros(Documento d) {
+        ResultadoExtraccion r = d.resultado;
+        String nombreOriginal = d.archivo.getFileName().toString();
+
+        Sucursal sucursal = Sucursal.desdeNumeroFactura(r.numeroFactura());
+        Aseguradora aseguradora = catalogoAseguradoras.buscarPorNombre(r.aseguradora())
+                .orElseGet(() -> registroFacturaService.detectarAseguradora(nombreOriginal, null));
+
+        return new MapSqlParameterSource()
+                .addValue("aseguradoraId", (aseguradora != null) ? aseguradora.getId() : null)
+                .addValue("estado", (aseguradora != null ? EstadoFactura.NUEVA : EstadoFactura.PENDIENTE_ASIGNACION).name())
+                .addValue("asunto", nombreOriginal)
+                .addValue("nombreArchivo", d.almacenado.nombreArchivo())
+                .addValue("hashContenido", d.almacenado.hash())
+                .addValue("fechaRecepcion", Timestamp.valueOf(LocalDateTime.now()))
+                .addValue("fechaFactura", (r.fechaFactura() != null) ? Date.valueOf(r.fechaFactura()) : null)
+                .addValue("numeroFactura", r.numeroFactura())
+                .addValue("numeroSiniestro", r.numeroSiniestro())
+                .addValue("numeroOrden", r.numeroOrden())
+                .addValue("sucursal", (sucursal != null) ? sucursal.name() : null);
+    }
+
+    private static <T> T enPool(ForkJoinPool pool, Callable<T> tarea) throws InterruptedException {
+        try {
+            return pool.submit(tarea).get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error inesperado en la importación", e.getCause());
+        }
+    }
+
+    private static String relativo(Path raiz, Path archivo) {
+        return raiz.relativize(archivo).toString();
+    }
+
+    private static String mensaje(Exception e) {
+        return (e.getMessage() != null) ? e.getMessage() : e.getClass().getSimpleName();
+    }
+
+    // rechazado: la extracción falló por los límites (va a CUARENTENA, no a DEAD_LETTER)
+    private record Documento(Path archivo,
+                             AlmacenPdfService.Almacenado almacenado,
+                             ResultadoExtraccion resultado,
+                             String error,
+                             boolean rechazado) {
+    }
+
+    private static final class ResultadoLote {
+        private int importados;
+        private int repetidos;
+        private int errores;
+        private boolean ilegibles;
+    }
+}
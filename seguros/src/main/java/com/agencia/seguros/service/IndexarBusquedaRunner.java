@@ -0,0 +1,88 @@
+package com.agencia.seguros.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Arma el índice de búsqueda de las facturas que todavía no lo tienen (las anteriores al
+ * índice). Corre al arrancar, en segundo plano, por páginas de id; una transacción por página.
+ */
+@Component
+public class IndexarBusquedaRunner implements ApplicationRunner {
+
+    private static final String SELECT_SIN_INDICE = """
+        SELECT f.id, f.numero_factura, f.numero_siniestro, f.numero_orden
+        FROM facturas f
+        WHERE f.id > :ultimoId
+          AND (f.numero_factura IS NOT NULL OR f.numero_siniestro IS NOT NULL OR f.numero_orden IS NOT NULL)
+          AND NOT EXISTS (SELECT 1 FROM facturas_trigramas t WHERE t.factura_id = f.id)
+        ORDER BY f.id
+        LIMIT :limite
+    """;
+
+    private final IndiceBusquedaFacturas indiceBusquedaFacturas;
+    private final NamedParameterJdbcTemplate jdbc;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.facturas.indexar-busqueda:true}")
+    private boolean habilitado;
+
+    @Value("${app.facturas.indexar-busqueda-pagina:500}")
+    private int tamanioPagina;
+
+    public IndexarBusquedaRunner(IndiceBusquedaFacturas indiceBusquedaFacturas,
+                                 NamedParameterJdbcTemplate jdbc,
+                                 PlatformTransactionManager transactionManager) {
+        this.indiceBusquedaFacturas = indiceBusquedaFacturas;
+        this.jdbc = jdbc;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!habilitado || args.containsOption(ImportacionMasivaRunner.OPCION)) {
+            return;
+        }
+
+        Thread hilo = new Thread(this::indexar, "indexar-busqueda");
+        hilo.setDaemon(true);
+        hilo.start();
+    }
+
+    void indexar() {
+        long ultimoId = 0;
+        int indexadas = 0;
+
+        try {
+            while (true) {
+                List<IndiceBusquedaFacturas.Numeros> pagina = jdbc.query(SELECT_SIN_INDICE,
+                        new MapSqlParameterSource()
+                                .addValue("ultimoId", ultimoId)
+                                .addValue("limite", Math.max(tamanioPagina, 1)),
+                        (rs, i) -> new IndiceBusquedaFacturas.Numeros(rs.getLong("id"), rs.getString("numero_factura"),
+                                rs.getString("numero_siniestro"), rs.getString("numero_orden")));
+                if (pagina.isEmpty()) {
+                    break;
+                }
+
+                transactionTemplate.executeWithoutResult(status -> indiceBusquedaFacturas.indexar(pagina));
+                indexadas += pagina.size();
+                ultimoId = pagina.get(pagina.size() - 1).facturaId();
+            }
+
+            if (indexadas > 0) {
+                System.out.println("Índice de búsqueda armado para " + indexadas + " facturas");
+            }
+        } catch (Exception e) {
+            System.err.println("Error armando el índice de búsqueda (se reintenta en el próximo arranque): " + e.getMessage());
+        }
+    }
+}
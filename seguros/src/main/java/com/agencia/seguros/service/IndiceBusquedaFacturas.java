@@ -0,0 +1,150 @@
+package com.agencia.seguros.service;
+
+import com.agencia.seguros.model.Sucursal;
+import com.agencia.seguros.model.TrigramaFactura;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Mantiene facturas_trigramas (búsqueda por substring de número de factura, siniestro y
+ * orden) y resuelve el autocompletado por prefijo.
+ * <p>
+ * Se reindexa al guardar por JPA ({@link FacturaListener}) y desde los caminos JDBC
+ * (importación masiva, re-extracción), siempre dentro de la transacción que cambió los
+ * números. {@link IndexarBusquedaRunner} completa las facturas que no tienen índice.
+ */
+@Service
+public class IndiceBusquedaFacturas {
+
+    private static final String DELETE_TRIGRAMAS = """
+        DELETE FROM facturas_trigramas WHERE factura_id IN (:ids)
+    """;
+
+    private static final String INSERT_TRIGRAMA = """
+        INSERT INTO facturas_trigramas (factura_id, campo, trigrama) VALUES (:facturaId, :campo, :trigrama)
+    """;
+
+    private static final String SELECT_NUMEROS = """
+        SELECT id, numero_factura, numero_siniestro, numero_orden FROM facturas WHERE id IN (:ids)
+    """;
+
+    private static final String SELECT_NUMEROS_POR_HASH = """
+        SELECT id, numero_factura, numero_siniestro, numero_orden FROM facturas WHERE hash_contenido IN (:hashes)
+    """;
+
+    /**
+     * Campos con búsqueda: código en facturas_trigramas y columna de facturas.
+     */
+    public enum Campo {
+        FACTURA(TrigramaFactura.CAMPO_FACTURA, "numero_factura"),
+        SINIESTRO(TrigramaFactura.CAMPO_SINIESTRO, "numero_siniestro"),
+        ORDEN(TrigramaFactura.CAMPO_ORDEN, "numero_orden");
+
+        final String codigo;
+        final String columna;
+
+        Campo(String codigo, String columna) {
+            this.codigo = codigo;
+            this.columna = columna;
+        }
+    }
+
+    public record Numeros(long facturaId, String numeroFactura, String numeroSiniestro, String numeroOrden) {
+    }
+
+    private final NamedParameterJdbcTemplate jdbc;
+
+    public IndiceBusquedaFacturas(NamedParameterJdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /**
+     * Reemplaza los trigramas de cada factura por los de sus números actuales.
+     */
+    public void indexar(Collection<Numeros> facturas) {
+        if (facturas.isEmpty()) {
+            return;
+        }
+
+        List<Long> ids = facturas.stream().map(Numeros::facturaId).toList();
+        jdbc.update(DELETE_TRIGRAMAS, new MapSqlParameterSource("ids", ids));
+
+        List<MapSqlParameterSource> filas = new ArrayList<>();
+        for (Numeros n : facturas) {
+            agregar(filas, n.facturaId(), Campo.FACTURA, n.numeroFactura());
+            agregar(filas, n.facturaId(), Campo.SINIESTRO, n.numeroSiniestro());
+            agregar(filas, n.facturaId(), Campo.ORDEN, n.numeroOrden());
+        }
+        if (!filas.isEmpty()) {
+            jdbc.batchUpdate(INSERT_TRIGRAMA, filas.toArray(new MapSqlParameterSource[0]));
+        }
+    }
+
+    /**
+     * Reindexa leyendo los números de la base (para cambios hechos por JDBC).
+     */
+    public void reindexar(Collection<Long> facturaIds) {
+        if (facturaIds.isEmpty()) {
+            return;
+        }
+        indexar(jdbc.query(SELECT_NUMEROS, new MapSqlParameterSource("ids", facturaIds), (rs, i) -> numeros(rs)));
+    }
+
+    public void reindexarPorHash(Collection<String> hashes) {
+        if (hashes.isEmpty()) {
+            return;
+        }
+        indexar(jdbc.query(SELECT_NUMEROS_POR_HASH, new MapSqlParameterSource("hashes", hashes), (rs, i) -> numeros(rs)));
+    }
+
+    public void eliminar(long facturaId) {
+        jdbc.update(DELETE_TRIGRAMAS, new MapSqlParameterSource("ids", List.of(facturaId)));
+    }
+
+    /**
+     * Números distintos que empiezan con el prefijo (índice B-tree de la columna).
+     *
+     * @param sucursal si no es null, solo facturas de esa sucursal
+     */
+    public List<String> autocompletar(Campo campo, String prefijo, Sucursal sucursal, int limite) {
+        if (prefijo == null || prefijo.isBlank()) {
+            return List.of();
+        }
+
+        // La columna sale del enum, nunca del request
+        String sql = "SELECT DISTINCT " + campo.columna + " FROM facturas"
+                + " WHERE " + campo.columna + " LIKE :prefijo"
+                + (sucursal != null ? " AND sucursal = :sucursal" : "")
+                + " ORDER BY " + campo.columna
+                + " LIMIT :limite";
+
+        return jdbc.queryForList(sql, new MapSqlParameterSource()
+                        .addValue("prefijo", escaparLike(prefijo.trim()) + "%")
+                        .addValue("sucursal", (sucursal != null) ? sucursal.name() : null)
+                        .addValue("limite", limite),
+                String.class);
+    }
+
+    private static void agregar(List<MapSqlParameterSource> filas, long facturaId, Campo campo, String numero) {
+        for (String trigrama : TrigramaFactura.trigramas(numero)) {
+            filas.add(new MapSqlParameterSource()
+                    .addValue("facturaId", facturaId)
+                    .addValue("campo", campo.codigo)
+                    .addValue("trigrama", trigrama));
+        }
+    }
+
+    private static Numeros numeros(java.sql.ResultSet rs) throws java.sql.SQLException {
+        return new Numeros(rs.getLong("id"), rs.getString("numero_factura"),
+                rs.getString("numero_siniestro"), rs.getString("numero_orden"));
+    }
+
+    private static String escaparLike(String texto) {
+        return texto.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -0,0 +1,474 @@
+package com.agencia.seguros.service;
+
+import com.agencia.seguros.config.IngestaProperties;
+import com.agencia.seguros.model.EtapaIngesta;
+import com.agencia.seguros.model.IngestaAdjunto;
+import com.agencia.seguros.repository.FacturaRepository;
+import com.agencia.seguros.repository.IngestaAdjuntoRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Pipeline de ingesta de adjuntos en tres etapas conectadas por colas acotadas:
+ * <ol>
+ *     <li>spool: el hilo IMAP deja el PDF en disco y una fila en ingesta_adjuntos (y nada más);</li>
+ *     <li>extracción: workers que parsean el PDF y guardan el resultado en la fila;</li>
+ *     <li>persistencia: workers que crean la Factura y su HistorialFactura.</li>
+ * </ol>
+ * El estado vive en la tabla, así que un reinicio retoma lo pendiente. Si la cola de una etapa
+ * está llena, el trabajo espera en la tabla y lo recoge el alimentador (backpressure sin
+ * frenar la sesión IMAP). Cada etapa reintenta con backoff exponencial y, agotados los
+ * intentos, deja la fila en DEAD_LETTER.
+ */
+@Service
+public class IngestaPipeline {
+
+    private final IngestaAdjuntoRepository ingestaAdjuntoRepository;
+    private final ExtraccionPdfService extraccionPdfService;
+    private final RegistroFacturaService registroFacturaService;
+    private final DeduplicadorMensajes deduplicadorMensajes;
+    private final FacturaRepository facturaRepository;
+    private final IngestaProperties props;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.facturas.ruta-archivos}")
+    private String rutaArchivos;
+
+    private static final List<EtapaIngesta> EXTRAIDAS =
+            List.of(EtapaIngesta.PENDIENTE_PERSISTENCIA, EtapaIngesta.COMPLETADA);
+
+    // Las que esperan intervención manual (ver reintentar)
+    private static final List<EtapaIngesta> FALLIDAS =
+            List.of(EtapaIngesta.DEAD_LETTER, EtapaIngesta.CUARENTENA);
+
+    private Etapa extraccion;
+    private Etapa persistencia;
+
+    // extracciones evitadas por contenido repetido
+    private final AtomicLong reutilizados = new AtomicLong();
+
+    public IngestaPipeline(IngestaAdjuntoRepository ingestaAdjuntoRepository,
+                           ExtraccionPdfService extraccionPdfService,
+                           RegistroFacturaService registroFacturaService,
+                           DeduplicadorMensajes deduplicadorMensajes,
+                           FacturaRepository facturaRepository,
+                           IngestaProperties props,
+                           PlatformTransactionManager transactionManager) {
+        this.ingestaAdjuntoRepository = ingestaAdjuntoRepository;
+        this.extraccionPdfService = extraccionPdfService;
+        this.registroFacturaService = registroFacturaService;
+        this.deduplicadorMensajes = deduplicadorMensajes;
+        this.facturaRepository = facturaRepository;
+        this.props = props;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        extraccion = new Etapa("extraccion", EtapaIngesta.PENDIENTE_EXTRACCION,
+                props.getExtraccion(), this::extraer);
+        persistencia = new Etapa("persistencia", EtapaIngesta.PENDIENTE_PERSISTENCIA,
+                props.getPersistencia(), this::persistir);
+    }
+
+    @PreDestroy
+    public void detener() {
+        extraccion.detener();
+        persistencia.detener();
+    }
+
+    // ===== etapa 1: spool (hilo IMAP) =====
+
+    /**
+     * Registra los adjuntos de un correo en staging, en una sola transacción.
+     * Cuando vuelve, el correo ya puede marcarse como procesado. Los que traen motivo de
+     * cuarentena quedan en CUARENTENA sin pasar por la extracción.
+     */
+    public void spool(List<AdjuntoDescargado> adjuntos) {
+        if (adjuntos.isEmpty()) {
+            return;
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Long> ids = new ArrayList<>();
+            for (AdjuntoDescargado adjunto : adjuntos) {
+                IngestaAdjunto fila = new IngestaAdjunto();
+                boolean enCuarentena = adjunto.motivoCuarentena() != null;
+                fila.setEtapa(enCuarentena ? EtapaIngesta.CUARENTENA : EtapaIngesta.PENDIENTE_EXTRACCION);
+                fila.setUltimoError(adjunto.motivoCuarentena());
+                fila.setMessageId(adjunto.messageId());
+                fila.setAsunto(adjunto.asunto());
+                fila.setRemitente(adjunto.remitente());
+                fila.setNombreArchivo(adjunto.nombreGuardado());
+                fila.setNombreOriginal(adjunto.nombreOriginal());
+                fila.setHashContenido(adjunto.hashContenido());
+                fila.setFechaRecepcion(LocalDateTime.now());
+                fila.setFechaActualizacion(LocalDateTime.now());
+                Long id = ingestaAdjuntoRepository.save(fila).getId();
+                if (!enCuarentena) {
+                    ids.add(id);
+                }
+            }
+
+            // Recién después del commit se ofrece a la etapa siguiente
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    ids.forEach(extraccion::ofrecer);
+                }
+            });
+        });
+    }
+
+    // ===== etapa 2: extracción =====
+
+    private void extraer(Long id) {
+        IngestaAdjunto fila = cargarSiEstaEn(id, EtapaIngesta.PENDIENTE_EXTRACCION);
+        if (fila == null) {
+            return;
+        }
+
+        try {
+            if (fila.getHashContenido() != null
+                    && ingestaAdjuntoRepository.existsByHashContenidoAndEtapa(fila.getHashContenido(), EtapaIngesta.CUARENTENA)) {
+                throw new PdfRechazadoException("Mismo contenido que un PDF ya en cuarentena");
+            }
+
+            IngestaAdjunto mismoContenido = buscarMismoContenido(fila);
+            if (mismoContenido != null) {
+                // Mismo PDF ya extraído en otra entrega: se copia el resultado sin volver a parsear
+                fila.setFechaFactura(mismoContenido.getFechaFactura());
+                fila.setNumeroFactura(mismoContenido.getNumeroFactura());
+                fila.setNumeroSiniestro(mismoContenido.getNumeroSiniestro());
+                fila.setNumeroOrden(mismoContenido.getNumeroOrden());
+                fila.setAseguradoraDetectada(mismoContenido.getAseguradoraDetectada());
+                reutilizados.incrementAndGet();
+            } else {
+                ResultadoExtraccion resultado = extraccionPdfService.extraerAdjunto(Path.of(rutaArchivos).resolve(fila.getNombreArchivo()),
+                        fila.getHashContenido(), fila.getNombreOriginal(), fila.getAsunto());
+
+                fila.setFechaFactura(resultado.fechaFactura());
+                fila.setNumeroFactura(resultado.numeroFactura());
+                fila.setNumeroSiniestro(resultado.numeroSiniestro());
+                fila.setNumeroOrden(resultado.numeroOrden());
+                fila.setAseguradoraDetectada(resultado.aseguradora());
+            }
+            fila.avanzarA(EtapaIngesta.PENDIENTE_PERSISTENCIA);
+            ingestaAdjuntoRepository.save(fila);
+
+            persistencia.ofrecer(id);
+
+        } catch (PdfRechazadoException e) {
+            enviarACuarentena(id, e.getMessage());
+        } catch (Exception e) {
+            registrarFallo(extraccion, id, e);
+        }
+    }
+
+    /**
+     * PDF que excede los límites: sin reintentos, queda para revisión manual.
+     */
+    private void enviarACuarentena(Long id, String motivo) {
+        extraccion.fallos.incrementAndGet();
+        transactionTemplate.executeWithoutResult(status -> {
+            IngestaAdjunto fila = ingestaAdjuntoRepository.findById(id).orElse(null);
+            if (fila == null) {
+                return;
+            }
+            fila.avanzarA(EtapaIngesta.CUARENTENA);
+            fila.setUltimoError(motivo);
+            ingestaAdjuntoRepository.save(fila);
+            System.err.println("Ingesta extraccion: adjunto " + id + " a CUARENTENA (" + fila.getNombreArchivo() + "): " + motivo);
+        });
+    }
+
+    private IngestaAdjunto buscarMismoContenido(IngestaAdjunto fila) {
+        if (fila.getHashContenido() == null) {
+            return null;
+        }
+        return ingestaAdjuntoRepository.findFirstByHashContenidoAndEtapaInAndIdNot(
+                fila.getHashContenido(), EXTRAIDAS, fila.getId()).orElse(null);
+    }
+
+    // ===== etapa 3: persistencia =====
+
+    private void persistir(Long id) {
+        IngestaAdjunto fila = cargarSiEstaEn(id, EtapaIngesta.PENDIENTE_PERSISTENCIA);
+        if (fila == null) {
+            return;
+        }
+
+        try {
+            registroFacturaService.registrar(fila);
+            deduplicadorMensajes.registrar(fila.getMessageId());
+
+        } catch (DataIntegrityViolationException e) {
+            if (!esDuplicado(e)) {
+                registrarFallo(persistencia, id, e);
+                return;
+            }
+            if (fila.getHashContenido() == null
+                    || !facturaRepository.existsByMessageIdAndHashContenido(fila.getMessageId(), fila.getHashContenido())) {
+                // Mismo Message-ID con otro PDF (p. ej. el segundo adjunto de un correo): no es
+                // una reentrega, así que no se descarta; queda a la vista en /admin/ingesta
+                enviarADeadLetter(id, "Message-ID ya registrado con otro PDF: " + fila.getMessageId());
+                return;
+            }
+            // Otra entrega del mismo correo y el mismo PDF ya quedó registrada: se cierra sin error
+            System.out.println("Saltando adjunto (Message-ID ya registrado): " + fila.getMessageId());
+            transactionTemplate.executeWithoutResult(status -> {
+                IngestaAdjunto actual = ingestaAdjuntoRepository.findById(id).orElseThrow();
+                actual.avanzarA(EtapaIngesta.COMPLETADA);
+                actual.setUltimoError("Message-ID ya registrado");
+                ingestaAdjuntoRepository.save(actual);
+            });
+            deduplicadorMensajes.registrar(fila.getMessageId());
+
+        } catch (Exception e) {
+            registrarFallo(persistencia, id, e);
+        }
+    }
+
+    /**
+     * Error que no se arregla reintentando: directo a DEAD_LETTER, sin gastar intentos.
+     */
+    private void enviarADeadLetter(Long id, String motivo) {
+        persistencia.fallos.incrementAndGet();
+        transactionTemplate.executeWithoutResult(status -> {
+            IngestaAdjunto fila = ingestaAdjuntoRepository.findById(id).orElse(null);
+            if (fila == null) {
+                return;
+            }
+            fila.setEtapa(EtapaIngesta.DEAD_LETTER);
+            fila.setProximoIntento(null);
+            fila.setUltimoError(motivo.length() > 1000 ? motivo.substring(0, 1000) : motivo);
+            fila.setFechaActualizacion(LocalDateTime.now());
+            ingestaAdjuntoRepository.save(fila);
+            System.err.println("Ingesta persistencia: adjunto " + id + " a DEAD_LETTER (" + fila.getNombreArchivo() + "): " + motivo);
+        });
+    }
+
+    private boolean esDuplicado(DataIntegrityViolationException ex) {
+        if (ex instanceof DuplicateKeyException) {
+            return true;
+        }
+        String detalle = ex.getMostSpecificCause().getMessage();
+        return detalle != null && detalle.contains("Duplicate entry");
+    }
+
+    // ===== reintentos y alimentación =====
+
+    private IngestaAdjunto cargarSiEstaEn(Long id, EtapaIngesta etapa) {
+        // Si el alimentador y la etapa anterior ofrecieron la misma fila, solo se procesa una vez
+        return ingestaAdjuntoRepository.findById(id)
+                .filter(fila -> fila.getEtapa() == etapa)
+                .orElse(null);
+    }
+
+    private void registrarFallo(Etapa etapa, Long id, Exception e) {
+        etapa.fallos.incrementAndGet();
+        String error = (e.getMessage() != null) ? e.getMessage() : e.getClass().getSimpleName();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            IngestaAdjunto fila = ingestaAdjuntoRepository.findById(id).orElse(null);
+            if (fila == null) {
+                return;
+            }
+
+            int intentos = fila.getIntentos() + 1;
+            fila.setIntentos(intentos);
+            fila.setUltimoError(error.length() > 1000 ? error.substring(0, 1000) : error);
+            fila.setFechaActualizacion(LocalDateTime.now());
+
+            if (intentos >= etapa.config.getMaxIntentos()) {
+                fila.setEtapa(EtapaIngesta.DEAD_LETTER);
+                fila.setProximoIntento(null);
+                System.err.println("Ingesta " + etapa.nombre + ": adjunto " + id + " a DEAD_LETTER tras "
+                        + intentos + " intentos (" + fila.getNombreArchivo() + "): " + error);
+            } else {
+                long espera = (long) etapa.config.getBackoffSegundos() << (intentos - 1);
+                fila.setProximoIntento(LocalDateTime.now().plusSeconds(espera));
+                System.err.println("Ingesta " + etapa.nombre + ": falló adjunto " + id
+                        + " (intento " + intentos + "), se reintenta en " + espera + "s: " + error);
+            }
+            ingestaAdjuntoRepository.save(fila);
+        });
+    }
+
+    /**
+     * Recoge de la tabla lo pendiente que no está en las colas: trabajo de antes de un
+     * reinicio, reintentos vencidos y lo que no entró por backpressure.
+     */
+    @Scheduled(fixedDelay = 5_000)
+    public void alimentar() {
+        extraccion.alimentar();
+        persistencia.alimentar();
+    }
+
+    // ===== administración =====
+
+    /**
+     * Adjuntos en DEAD_LETTER o CUARENTENA (etapa null = ambas), los más recientes primero.
+     */
+    public List<IngestaAdjunto> listarFallidos(EtapaIngesta etapa, int pagina, int tamanio) {
+        if (etapa != null && !FALLIDAS.contains(etapa)) {
+            throw new IllegalArgumentException("Solo se listan DEAD_LETTER o CUARENTENA: " + etapa);
+        }
+        List<EtapaIngesta> etapas = (etapa != null) ? List.of(etapa) : FALLIDAS;
+        return ingestaAdjuntoRepository.findByEtapaInOrderByIdDesc(etapas, PageRequest.of(pagina, tamanio));
+    }
+
+    /**
+     * Vuelve a poner en extracción un adjunto en DEAD_LETTER o CUARENTENA, con los intentos
+     * en cero (por ejemplo, después de corregir las reglas o subir un límite).
+     *
+     * @return false si no existe o no está en una de esas etapas
+     */
+    public boolean reintentar(Long id) {
+        Boolean reencolado = transactionTemplate.execute(status -> {
+            IngestaAdjunto fila = ingestaAdjuntoRepository.findById(id).orElse(null);
+            if (fila == null || !FALLIDAS.contains(fila.getEtapa())) {
+                return false;
+            }
+            System.out.println("Ingesta: adjunto " + id + " (" + fila.getNombreArchivo() + ") reintentado desde "
+                    + fila.getEtapa() + ", último error: " + fila.getUltimoError());
+            fila.avanzarA(EtapaIngesta.PENDIENTE_EXTRACCION);
+            ingestaAdjuntoRepository.save(fila);
+            return true;
+        });
+
+        if (Boolean.TRUE.equals(reencolado)) {
+            extraccion.ofrecer(id);
+            return true;
+        }
+        return false;
+    }
+
+    @Scheduled(fixedDelay = 60_000)
+    public void reportar() {
+        extraccion.reportar();
+        persistencia.reportar();
+
+        long evitadas = reutilizados.getAndSet(0);
+        if (evitadas > 0) {
+            System.out.println("Ingesta extraccion: " + evitadas + " PDF repetidos reutilizaron una extracción previa");
+        }
+    }
+
+    /**
+     * Una etapa: cola acotada + workers propios + contadores para el throughput.
+     */
+    private final class Etapa {
+
+        private final String nombre;
+        private final EtapaIngesta estadoEntrada;
+        private final IngestaProperties.Etapa config;
+        private final BlockingQueue<Long> cola;
+        private final Set<Long> enCurso = ConcurrentHashMap.newKeySet();
+        private final ExecutorService workers;
+        private final AtomicLong procesados = new AtomicLong();
+        private final AtomicLong fallos = new AtomicLong();
+
+        private long procesadosReportados;
+        private long ultimoReporte = System.nanoTime();
+
+        private Etapa(String nombre, EtapaIngesta estadoEntrada, IngestaProperties.Etapa config, Consumer<Long> trabajo) {
+            this.nombre = nombre;
+            this.estadoEntrada = estadoEntrada;
+            this.config = config;
+            this.cola = new ArrayBlockingQueue<>(Math.max(props.getCapacidadCola(), 1));
+
+            int cantidad = Math.max(config.getWorkers(), 1);
+            AtomicInteger contador = new AtomicInteger();
+            this.workers = Executors.newFixedThreadPool(cantidad, r -> {
+                Thread t = new Thread(r, "ingesta-" + nombre + "-" + contador.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+            for (int i = 0; i < cantidad; i++) {
+                workers.submit(() -> trabajar(trabajo));
+            }
+        }
+
+        private void trabajar(Consumer<Long> trabajo) {
+            while (!Thread.currentThread().isInterrupted()) {
+                Long id;
+                try {
+                    id = cola.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+
+                try {
+                    trabajo.accept(id);
+                    procesados.incrementAndGet();
+                } catch (Exception e) {
+                    System.err.println("Ingesta " + nombre + ": error inesperado con adjunto " + id + ": " + e.getMessage());
+                } finally {
+                    enCurso.remove(id);
+                }
+            }
+        }
+
+        /**
+         * No bloquea: si la cola está llena la fila queda en la tabla para el alimentador.
+         */
+        private void ofrecer(Long id) {
+            if (enCurso.add(id) && !cola.offer(id)) {
+                enCurso.remove(id);
+            }
+        }
+
+        private void alimentar() {
+            int lugar = cola.remainingCapacity();
+            if (lugar <= 0) {
+                return;
+            }
+            ingestaAdjuntoRepository.findIdsListos(estadoEntrada, LocalDateTime.now(), PageRequest.of(0, lugar))
+                    .forEach(this::ofrecer);
+        }
+
+        private void reportar() {
+            long total = procesados.get();
+            long ahora = System.nanoTime();
+            long nuevos = total - procesadosReportados;
+
+            if (nuevos > 0) {
+                double segundos = (ahora - ultimoReporte) / 1_000_000_000.0;
+                System.out.printf("Ingesta %s: %d atendidos (%.2f/s), %d fallos acumulados, %d en cola%n",
+                        nombre, nuevos, nuevos / segundos, fallos.get(), cola.size());
+            }
+            procesadosReportados = total;
+            ultimoReporte = ahora;
+        }
+
+        private void detener() {
+            workers.shutdownNow();
+        }
+    }
+}
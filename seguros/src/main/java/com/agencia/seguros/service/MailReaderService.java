@@ -1,34 +1,31 @@
 package com.agencia.seguros.service;
 
 import com.agencia.seguros.config.CorreoImapProperties;
-import com.agencia.seguros.model.Aseguradora;
-import com.agencia.seguros.model.EstadoFactura;
-import com.agencia.seguros.model.Factura;
-import com.agencia.seguros.repository.AseguradoraRepository;
-import com.agencia.seguros.repository.FacturaRepository;
+import com.agencia.seguros.config.ExtraccionProperties;
+import com.agencia.seguros.model.CheckpointCorreo;
+import com.agencia.seguros.model.CorreoFallido;
+import com.agencia.seguros.repository.CheckpointCorreoRepository;
+import com.agencia.seguros.repository.CorreoFallidoRepository;
 import jakarta.mail.*;
-import jakarta.mail.internet.MimeBodyPart;
-import jakarta.mail.search.FlagTerm;
-import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.text.PDFTextStripper;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.io.InputStream;
-import java.text.Normalizer;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
-import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -36,12 +33,12 @@ import java.util.regex.Pattern;
 public class MailReaderService {
 
     private final CorreoImapProperties props;
-    private final FacturaRepository facturaRepository;
-    private final AseguradoraRepository aseguradoraRepository;
-    private final HistorialFacturaService historialFacturaService;
-
-    @Value("${app.facturas.ruta-archivos}")
-    private String rutaArchivos;
+    private final DeduplicadorMensajes deduplicadorMensajes;
+    private final CheckpointCorreoRepository checkpointCorreoRepository;
+    private final CorreoFallidoRepository correoFallidoRepository;
+    private final IngestaPipeline ingestaPipeline;
+    private final AlmacenPdfService almacenPdfService;
+    private final ExtraccionProperties extraccionProperties;
 
     // remitente real (mail)
     @Value("${app.correo.remitente-esperado:aperez@amiun.com.ar}")
@@ -55,15 +52,29 @@ public class MailReaderService {
     private boolean mailEnabled;
 
     public MailReaderService(CorreoImapProperties props,
-                             FacturaRepository facturaRepository,
-                             AseguradoraRepository aseguradoraRepository,
-                             HistorialFacturaService historialFacturaService) {
+                             DeduplicadorMensajes deduplicadorMensajes,
+                             CheckpointCorreoRepository checkpointCorreoRepository,
+                             CorreoFallidoRepository correoFallidoRepository,
+                             IngestaPipeline ingestaPipeline,
+                             AlmacenPdfService almacenPdfService,
+                             ExtraccionProperties extraccionProperties) {
         this.props = props;
-        this.facturaRepository = facturaRepository;
-        this.aseguradoraRepository = aseguradoraRepository;
-        this.historialFacturaService = historialFacturaService;
+        this.deduplicadorMensajes = deduplicadorMensajes;
+        this.checkpointCorreoRepository = checkpointCorreoRepository;
+        this.correoFallidoRepository = correoFallidoRepository;
+        this.ingestaPipeline = ingestaPipeline;
+        this.almacenPdfService = almacenPdfService;
+        this.extraccionProperties = extraccionProperties;
     }
 
+    // true mientras ImapIdleService mantiene la carpeta abierta en modo push
+    private volatile boolean modoPushActivo;
+
+    // Polling, IDLE y los reintentos manuales pueden solaparse (por ejemplo durante una
+    // reconexión IDLE): una sola sincronización por carpeta a la vez, para no encolar dos
+    // veces el mismo correo ni pisar el checkpoint con un UID anterior
+    private final Map<String, ReentrantLock> bloqueosPorCarpeta = new ConcurrentHashMap<>();
+
     @Scheduled(fixedDelay = 60_000)
     public void leerNuevosCorreos() {
 
@@ -72,31 +83,20 @@ public class MailReaderService {
             return;
         }
 
-        System.out.println("Buscando correos nuevos (no leídos)...");
+        // En modo IDLE el polling solo corre como respaldo (sin soporte IDLE o conexión caída)
+        if (modoPushActivo) {
+            return;
+        }
 
-        Properties properties = new Properties();
-        properties.put("mail.store.protocol", "imaps");
+        System.out.println("Buscando correos nuevos...");
 
         try {
-            Session session = Session.getInstance(properties);
-            Store store = session.getStore("imaps");
-            store.connect(props.getHost(), props.getUsername(), props.getPassword());
+            Store store = abrirStore();
 
             Folder folder = store.getFolder(props.getFolder());
             folder.open(Folder.READ_WRITE);
 
-            Message[] messages = folder.search(new FlagTerm(new Flags(Flags.Flag.SEEN), false));
-            System.out.println("Correos NO leídos encontrados: " + messages.length);
-
-            for (Message message : messages) {
-                try {
-                    procesarMensaje(message);
-                    message.setFlag(Flags.Flag.SEEN, true);
-                } catch (Exception ex) {
-                    System.err.println("Error procesando mail: " + ex.getMessage());
-                    ex.printStackTrace();
-                }
-            }
+            sincronizarCarpeta(folder);
 
             folder.close(false);
             store.close();
@@ -107,19 +107,241 @@ public class MailReaderService {
         }
     }
 
-    private void procesarMensaje(Message message) throws Exception {
-        String asunto = safe(message.getSubject());
-        String remitenteRaw = extraerFromRaw(message);
-        String remitenteEmail = extraerEmail(remitenteRaw).toLowerCase(Locale.ROOT);
+    /**
+     * Conecta al servidor IMAP con la configuración de {@link CorreoImapProperties}.
+     */
+    public Store abrirStore() throws MessagingException {
+        String protocolo = props.getProtocolo();
 
-        // 1) Message-ID
-        String messageId = extraerMessageId(message);
-        if (messageId != null && !messageId.isBlank()) {
-            if (facturaRepository.existsByMessageId(messageId)) {
-                System.out.println("Saltando mail (ya procesado). Message-ID: " + messageId);
-                return;
+        Properties properties = new Properties();
+        properties.put("mail.store.protocol", protocolo);
+        // los adjuntos se bajan en bloques de 1 MB en lugar de los 16 KB por defecto
+        properties.put("mail." + protocolo + ".fetchsize", String.valueOf(1024 * 1024));
+
+        Session session = Session.getInstance(properties);
+        Store store = session.getStore(protocolo);
+        int port = (props.getPort() != null) ? props.getPort() : -1;
+        store.connect(props.getHost(), port, props.getUsername(), props.getPassword());
+        return store;
+    }
+
+    /**
+     * Procesa los correos posteriores al último UID registrado para la carpeta
+     * (ya abierta en READ_WRITE). La usan tanto el polling como el modo IDLE.
+     * No depende del flag SEEN: si alguien abre la casilla desde un cliente no se pierden mails.
+     * Las llamadas sobre una misma carpeta se serializan.
+     */
+    public void sincronizarCarpeta(Folder folder) throws MessagingException {
+        ReentrantLock bloqueo = bloqueoDe(folder.getFullName());
+        bloqueo.lock();
+        try {
+            sincronizar(folder);
+        } finally {
+            bloqueo.unlock();
+        }
+    }
+
+    private void sincronizar(Folder folder) throws MessagingException {
+        UIDFolder uidFolder = (UIDFolder) folder;
+        String carpeta = folder.getFullName();
+        long uidValidity = uidFolder.getUIDValidity();
+
+        CheckpointCorreo checkpoint = checkpointCorreoRepository.findByCarpeta(carpeta)
+                .orElseGet(() -> new CheckpointCorreo(carpeta));
+
+        if (checkpoint.getUidValidity() == null || checkpoint.getUidValidity() != uidValidity) {
+            // Primera vez o el servidor regeneró los UID: rescan completo (los ya cargados se saltean por Message-ID)
+            System.out.println("Sin checkpoint válido para " + carpeta + " (UIDVALIDITY " + uidValidity + "). Rescan completo.");
+            checkpoint.setUidValidity(uidValidity);
+            checkpoint.setUltimoUid(0L);
+        }
+
+        long desdeUid = checkpoint.getUltimoUid() + 1;
+        Message[] messages = uidFolder.getMessagesByUID(desdeUid, UIDFolder.MAXUID);
+
+        // Un solo round-trip para todo el lote: envelope (asunto/remitente), Message-ID y
+        // BODYSTRUCTURE. Con eso se filtra sin bajar cuerpos y se ubican los adjuntos PDF.
+        FetchProfile fetchProfile = new FetchProfile();
+        fetchProfile.add(FetchProfile.Item.ENVELOPE);
+        fetchProfile.add(FetchProfile.Item.CONTENT_INFO);
+        fetchProfile.add(UIDFolder.FetchProfileItem.UID);
+        fetchProfile.add("Message-ID");
+        folder.fetch(messages, fetchProfile);
+
+        // Deduplicación de todo el lote de una vez (filtro en memoria + una consulta IN).
+        // Los correos sin Message-ID se identifican por UIDVALIDITY + UID.
+        String[] claves = new String[messages.length];
+        for (int i = 0; i < messages.length; i++) {
+            claves[i] = claveMensaje(messages[i], carpeta, uidValidity, uidFolder.getUID(messages[i]));
+        }
+        Set<String> yaProcesados = deduplicadorMensajes.yaProcesados(Arrays.asList(claves));
+
+        // Los que ya fallaron en este rango: en DEAD_LETTER se saltean, el resto se reintenta
+        Map<Long, CorreoFallido> fallidos = new HashMap<>();
+        for (CorreoFallido f : correoFallidoRepository.findByCarpetaAndUidValidityAndUidGreaterThanEqual(carpeta, uidValidity, desdeUid)) {
+            fallidos.put(f.getUid(), f);
+        }
+
+        long inicio = System.nanoTime();
+        long ultimoUid = checkpoint.getUltimoUid();
+        boolean sinPendientes = true;
+        int procesados = 0;
+        int totalAdjuntos = 0;
+
+        for (int i = 0; i < messages.length; i++) {
+            Message message = messages[i];
+            long uid = uidFolder.getUID(message);
+            // "n:*" siempre devuelve al menos el último mensaje, aunque su UID sea menor
+            if (uid < desdeUid) {
+                continue;
+            }
+
+            // El checkpoint avanza mientras no quede un correo pendiente de reintento antes;
+            // los que están en DEAD_LETTER no lo retienen (se reintentan desde la administración)
+            CorreoFallido fallido = fallidos.get(uid);
+            if (fallido != null && fallido.getIntentos() >= props.getMaxIntentos()) {
+                if (sinPendientes) {
+                    ultimoUid = uid;
+                }
+                continue;
             }
+
+            try {
+                totalAdjuntos += procesar(message, claves[i], yaProcesados);
+                procesados++;
+                if (fallido != null) {
+                    correoFallidoRepository.delete(fallido);
+                }
+                if (sinPendientes) {
+                    ultimoUid = uid;
+                }
+            } catch (Exception ex) {
+                fallido = registrarFallo(fallido, carpeta, uidValidity, uid, message, claves[i], ex);
+                if (fallido.getIntentos() >= props.getMaxIntentos()) {
+                    System.err.println("Mail UID " + uid + " a DEAD_LETTER tras " + fallido.getIntentos()
+                            + " intentos: " + fallido.getUltimoError());
+                    if (sinPendientes) {
+                        ultimoUid = uid;
+                    }
+                } else {
+                    sinPendientes = false;
+                    System.err.println("Error procesando mail UID " + uid + " (intento " + fallido.getIntentos()
+                            + "), se reintenta en la próxima sincronización: " + fallido.getUltimoError());
+                }
+                ex.printStackTrace();
+            }
+        }
+
+        double segundos = (System.nanoTime() - inicio) / 1_000_000_000.0;
+        System.out.printf("Correos nuevos desde UID %d: %d (%d adjuntos en spool en %.1fs)%n",
+                desdeUid, procesados, totalAdjuntos, segundos);
+
+        checkpoint.setUltimoUid(ultimoUid);
+        checkpoint.setFechaActualizacion(LocalDateTime.now());
+        checkpointCorreoRepository.save(checkpoint);
+    }
+
+    // ===== administración =====
+
+    public List<CorreoFallido> listarCorreosFallidos(int pagina, int tamanio) {
+        return correoFallidoRepository.findAll(PageRequest.of(pagina, tamanio, Sort.by(Sort.Direction.DESC, "id"))).getContent();
+    }
+
+    /**
+     * Vuelve a procesar un correo de correos_fallidos buscándolo por UID (el checkpoint ya
+     * lo pasó). Si sale bien se borra la fila; si falla se suma el intento y se propaga el error.
+     *
+     * @return false si el correo ya no está en la carpeta o cambió el UIDVALIDITY
+     * @throws NoSuchElementException si no hay un correo fallido con ese id
+     */
+    public boolean reintentarCorreo(Long id) throws Exception {
+        CorreoFallido fallido = correoFallidoRepository.findById(id).orElseThrow();
+
+        Store store = abrirStore();
+        try {
+            Folder folder = store.getFolder(fallido.getCarpeta());
+            folder.open(Folder.READ_WRITE);
+            try {
+                UIDFolder uidFolder = (UIDFolder) folder;
+                Message message = (uidFolder.getUIDValidity() == fallido.getUidValidity())
+                        ? uidFolder.getMessageByUID(fallido.getUid())
+                        : null;
+                if (message == null) {
+                    return false;
+                }
+
+                String clave = fallido.getMessageId();
+                ReentrantLock bloqueo = bloqueoDe(fallido.getCarpeta());
+                bloqueo.lock();
+                try {
+                    procesar(message, clave, deduplicadorMensajes.yaProcesados(List.of(clave)));
+                    correoFallidoRepository.delete(fallido);
+                } catch (Exception e) {
+                    registrarFallo(fallido, fallido.getCarpeta(), fallido.getUidValidity(), fallido.getUid(), message, clave, e);
+                    throw e;
+                } finally {
+                    bloqueo.unlock();
+                }
+                System.out.println("Mail UID " + fallido.getUid() + " de " + fallido.getCarpeta() + " reintentado sin errores.");
+                return true;
+            } finally {
+                folder.close(false);
+            }
+        } finally {
+            store.close();
         }
+    }
+
+    /**
+     * Baja los adjuntos del correo, los pasa al spool y lo marca como leído.
+     *
+     * @return cantidad de adjuntos en spool
+     */
+    private int procesar(Message message, String clave, Set<String> yaProcesados) throws Exception {
+        // La sesión IMAP solo filtra, baja los PDF y los deja en staging;
+        // extracción y registro siguen en el pipeline de ingesta
+        List<AdjuntoDescargado> adjuntos = descargarAdjuntos(message, clave, yaProcesados);
+        ingestaPipeline.spool(adjuntos);
+        message.setFlag(Flags.Flag.SEEN, true);
+        return adjuntos.size();
+    }
+
+    private CorreoFallido registrarFallo(CorreoFallido fallido, String carpeta, long uidValidity, long uid,
+                                         Message message, String clave, Exception ex) {
+        if (fallido == null) {
+            fallido = new CorreoFallido(carpeta, uidValidity, uid);
+            fallido.setMessageId(clave);
+            try {
+                fallido.setAsunto(recortar(message.getSubject(), 255));
+                fallido.setRemitente(recortar(extraerFromRaw(message), 255));
+            } catch (Exception ignored) {
+            }
+        }
+        String error = (ex.getMessage() != null) ? ex.getMessage() : ex.getClass().getSimpleName();
+        fallido.setIntentos(fallido.getIntentos() + 1);
+        fallido.setUltimoError(recortar(error, 1000));
+        fallido.setFechaActualizacion(LocalDateTime.now());
+        return correoFallidoRepository.save(fallido);
+    }
+
+    private ReentrantLock bloqueoDe(String carpeta) {
+        return bloqueosPorCarpeta.computeIfAbsent(carpeta, c -> new ReentrantLock());
+    }
+
+    public void setModoPushActivo(boolean modoPushActivo) {
+        this.modoPushActivo = modoPushActivo;
+    }
+
+    /**
+     * Filtra el mensaje y copia sus adjuntos PDF a disco. Corre en el hilo IMAP;
+     * la extracción y el registro quedan para el pipeline de ingesta.
+     */
+    private List<AdjuntoDescargado> descargarAdjuntos(Message message, String messageId, Set<String> yaProcesados) throws Exception {
+        List<AdjuntoDescargado> adjuntos = new ArrayList<>();
+
+        String asunto = safe(message.getSubject());
+        String remitenteRaw = extraerFromRaw(message);
+        String remitenteEmail = extraerEmail(remitenteRaw).toLowerCase(Locale.ROOT);
 
         boolean remitenteOk = remitenteEmail.contains(remitenteEsperado.toLowerCase(Locale.ROOT));
         boolean asuntoOk    = asunto.toLowerCase(Locale.ROOT)
@@ -129,7 +351,7 @@ public class MailReaderService {
             System.out.println("Saltando mail: no coincide remitente ni asunto.");
             System.out.println("De: " + remitenteRaw);
             System.out.println("Asunto: " + asunto);
-            return;
+            return adjuntos;
         }
 
         // log opcional
@@ -141,94 +363,95 @@ public class MailReaderService {
             System.out.println("Mail aceptado por remitente, aunque asunto distinto.");
         }
 
+        if (yaProcesados.contains(messageId)) {
+            System.out.println("Saltando mail (ya procesado). Message-ID: " + messageId);
+            return adjuntos;
+        }
+
 
         System.out.println("--------");
         System.out.println("Asunto: " + asunto);
         System.out.println("De: " + remitenteRaw);
         System.out.println("Message-ID: " + messageId);
 
-        Object content = message.getContent();
-        if (!(content instanceof Multipart multipart)) {
-            System.out.println("Mail sin multipart, no hay adjuntos PDF.");
-            return;
-        }
-
-        for (int i = 0; i < multipart.getCount(); i++) {
-            BodyPart bodyPart = multipart.getBodyPart(i);
-
-            String fileName = bodyPart.getFileName();
-            String disposition = bodyPart.getDisposition();
+        // Solo se descargan las partes PDF; el resto del MIME (imágenes inline, html) no se baja
+        List<Part> partesPdf = new ArrayList<>();
+        buscarPartesPdf(message, partesPdf);
 
-            boolean esAdjunto = Part.ATTACHMENT.equalsIgnoreCase(disposition)
-                    || (fileName != null && !fileName.isBlank());
+        if (partesPdf.isEmpty()) {
+            System.out.println("Mail sin adjuntos PDF.");
+            return adjuntos;
+        }
 
-            if (esAdjunto && fileName != null && fileName.toLowerCase(Locale.ROOT).endsWith(".pdf")) {
-                if (bodyPart instanceof MimeBodyPart mimeBodyPart) {
-                    guardarAdjuntoPdf(mimeBodyPart, fileName, asunto, remitenteRaw, messageId);
-                } else {
-                    System.out.println("Adjunto PDF no es MimeBodyPart (se ignora). File: " + fileName);
-                }
+        for (Part parte : partesPdf) {
+            String motivo = null;
+            if (excedeTamanio(parte)) {
+                // Se baja igual (va por stream a disco, no al heap) para poder revisarlo o
+                // reintentarlo subiendo el límite; el extractor no llega a abrirlo
+                motivo = "Adjunto de ~" + (parte.getSize() * 3L / 4 / (1024 * 1024)) + " MB, supera "
+                        + "app.extraccion.limites.tamanio-maximo-mb (" + extraccionProperties.getLimites().getTamanioMaximoMb() + " MB)";
+                System.err.println("Adjunto " + parte.getFileName() + " a cuarentena: " + motivo);
             }
+            adjuntos.add(guardarAdjuntoPdf(parte, parte.getFileName(), asunto, remitenteRaw, messageId, motivo));
         }
-    }
-
-    private void guardarAdjuntoPdf(MimeBodyPart bodyPart,
-                                   String fileName,
-                                   String asunto,
-                                   String remitente,
-                                   String messageId) throws Exception {
 
-        Path carpeta = Path.of(rutaArchivos);
-        Files.createDirectories(carpeta);
-
-        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
-        String nombreGuardado = timestamp + "_" + fileName;
-        Path destino = carpeta.resolve(nombreGuardado);
+        return adjuntos;
+    }
 
-        try (InputStream is = bodyPart.getInputStream()) {
-            Files.copy(is, destino, StandardCopyOption.REPLACE_EXISTING);
+    /**
+     * Recorre el árbol MIME (multiparts anidados incluidos) usando la BODYSTRUCTURE
+     * ya cacheada: no descarga contenido, solo junta las partes que son adjuntos PDF.
+     */
+    private void buscarPartesPdf(Part part, List<Part> partesPdf) throws Exception {
+        if (part.isMimeType("multipart/*")) {
+            Multipart multipart = (Multipart) part.getContent();
+            for (int i = 0; i < multipart.getCount(); i++) {
+                buscarPartesPdf(multipart.getBodyPart(i), partesPdf);
+            }
+            return;
         }
 
-        System.out.println("PDF guardado: " + destino.toAbsolutePath());
+        String fileName = part.getFileName();
+        String disposition = part.getDisposition();
 
-        Factura factura = new Factura();
-        factura.setAsunto(asunto);
-        factura.setRemitente(remitente);
-        factura.setNombreArchivo(nombreGuardado);
-        factura.setFechaRecepcion(LocalDateTime.now());
+        boolean esAdjunto = Part.ATTACHMENT.equalsIgnoreCase(disposition)
+                || (fileName != null && !fileName.isBlank());
 
-        // guardar messageId
-        if (messageId != null && !messageId.isBlank()) {
-            factura.setMessageId(messageId);
+        if (esAdjunto && fileName != null && fileName.toLowerCase(Locale.ROOT).endsWith(".pdf")) {
+            partesPdf.add(part);
         }
+    }
 
-        LocalDate fechaFactura = extraerFechaFacturaDesdePdf(destino);
-        factura.setFechaFactura(fechaFactura);
-
-        Map<String, String> datos = extraerDatosDesdePdf(destino);
-        factura.setNumeroFactura(datos.get("numeroFactura"));
-        factura.setNumeroSiniestro(datos.get("numeroSiniestro"));
-        factura.setNumeroOrden(datos.get("numeroOrden"));
+    /**
+     * El tamaño viene de la BODYSTRUCTURE (codificado en base64, ~4/3 del real),
+     * así que se decide sin descargar la parte.
+     */
+    private boolean excedeTamanio(Part part) throws MessagingException {
+        int maximoMb = extraccionProperties.getLimites().getTamanioMaximoMb();
+        int tamanio = part.getSize();
+        return maximoMb > 0 && tamanio > 0 && tamanio * 3L / 4 > maximoMb * 1024L * 1024L;
+    }
 
-        factura.setEstado(EstadoFactura.NUEVA);
+    private AdjuntoDescargado guardarAdjuntoPdf(Part bodyPart,
+                                                String fileName,
+                                                String asunto,
+                                                String remitente,
+                                                String messageId,
+                                                String motivoCuarentena) throws Exception {
 
-        Aseguradora aseguradora = detectarAseguradoraDesdePdf(destino);
-        if (aseguradora == null) {
-            aseguradora = detectarAseguradora(asunto, remitente);
+        AlmacenPdfService.Almacenado almacenado;
+        try (InputStream is = bodyPart.getInputStream()) {
+            almacenado = almacenPdfService.guardar(is);
         }
 
-        if (aseguradora != null) {
-            factura.setAseguradora(aseguradora);
+        if (almacenado.nuevo()) {
+            System.out.println("PDF guardado: " + fileName + " -> " + almacenado.ruta().toAbsolutePath());
         } else {
-            factura.setEstado(EstadoFactura.PENDIENTE_ASIGNACION);
+            System.out.println("PDF ya almacenado (mismo contenido): " + fileName + " -> " + almacenado.nombreArchivo());
         }
 
-        facturaRepository.save(factura);
-
-        historialFacturaService.registrarAccionSimple(factura,
-                "CREACION",
-                "Factura creada desde correo IMAP.",
-                "sistema");
+        return new AdjuntoDescargado(almacenado.ruta(), almacenado.nombreArchivo(), fileName, almacenado.hash(),
+                asunto, remitente, messageId, motivoCuarentena);
     }
 
     // ===== helpers mail =====
@@ -242,6 +465,18 @@ public class MailReaderService {
         return null;
     }
 
+    /**
+     * Message-ID del correo o, si no tiene, uno armado con carpeta + UIDVALIDITY + UID:
+     * así también se deduplica y llega a facturas.message_id (unique).
+     */
+    private String claveMensaje(Message message, String carpeta, long uidValidity, long uid) {
+        String messageId = extraerMessageId(message);
+        if (messageId != null && !messageId.isBlank()) {
+            return messageId;
+        }
+        return recortar("<" + uidValidity + "." + uid + "." + carpeta + "@sin-message-id>", 255);
+    }
+
     private String extraerFromRaw(Message message) throws MessagingException {
         Address[] from = message.getFrom();
         return (from != null && from.length > 0) ? from[0].toString() : "(desconocido)";
@@ -257,206 +492,7 @@ public class MailReaderService {
         return (s == null) ? "" : s;
     }
 
-    // ===== extracción PDF =====
-
-    private LocalDate extraerFechaFacturaDesdePdf(Path pdfPath) {
-        try (PDDocument doc = PDDocument.load(pdfPath.toFile())) {
-            PDFTextStripper stripper = new PDFTextStripper();
-            String texto = stripper.getText(doc);
-            if (texto == null) return null;
-
-            Pattern pattern = Pattern.compile("\\b(\\d{2})/(\\d{2})/(\\d{4})\\b");
-            Matcher matcher = pattern.matcher(texto);
-
-            if (matcher.find()) {
-                int dia = Integer.parseInt(matcher.group(1));
-                int mes = Integer.parseInt(matcher.group(2));
-                int anio = Integer.parseInt(matcher.group(3));
-                return LocalDate.of(anio, mes, dia);
-            }
-        } catch (Exception e) {
-            System.out.println("No se pudo extraer fecha del PDF: " + e.getMessage());
-        }
-        return null;
-    }
-    // ===== extracción de datos del PDF =====
-
-    private Map<String, String> extraerDatosDesdePdf(Path pdfPath) {
-        Map<String, String> datos = new HashMap<>();
-
-        try (PDDocument doc = PDDocument.load(pdfPath.toFile())) {
-
-            Map<String, String> datos1 = extraerConModo(doc, true);
-            // Si faltan campos importantes, probamos modo alternativo
-            if (!datos1.containsKey("numeroFactura") || !datos1.containsKey("numeroOrden") || !datos1.containsKey("numeroSiniestro")) {
-                Map<String, String> datos2 = extraerConModo(doc, false);
-                // quedate con el que tenga más datos
-                datos = (datos2.size() > datos1.size()) ? datos2 : datos1;
-            } else {
-                datos = datos1;
-            }
-
-        } catch (Exception e) {
-            System.out.println("Error leyendo PDF: " + e.getMessage());
-        }
-
-        return datos;
-    }
-
-    private Map<String, String> extraerConModo(PDDocument doc, boolean sortByPosition) throws Exception {
-        Map<String, String> datos = new HashMap<>();
-
-        PDFTextStripper stripper = new PDFTextStripper();
-        stripper.setSortByPosition(sortByPosition);
-
-        String texto = stripper.getText(doc);
-        if (texto == null) return datos;
-
-        texto = Normalizer.normalize(texto, Normalizer.Form.NFKC);
-        texto = texto.replace('\u00A0', ' ');
-        texto = texto.replace('\u2212', '-'); // minus sign
-        texto = texto.replace('\u2010', '-');
-        texto = texto.replace('\u2011', '-');
-        texto = texto.replaceAll("[–—]", "-");
-        texto = texto.replaceAll("[\\t\\f\\r]", " ");
-        texto = texto.replaceAll(" +", " ");
-
-        // FACTURA
-        Pattern pFactura = Pattern.compile(
-                "(?is)\\bN\\s*(?:[º°oO]|ro\\.?|o)?\\s*[:]?\\s*(\\d{4})\\s*[-−–—]?\\s*(\\d{8})\\b"
-        );
-        Matcher mFactura = pFactura.matcher(texto);
-        if (mFactura.find()) {
-            datos.put("numeroFactura", mFactura.group(1) + "-" + mFactura.group(2));
-        }
-
-        // SINIESTRO
-        Pattern pSiniestro = Pattern.compile(
-                "(?is)\\b(?:n[uú]mero|n(?:ro)?\\.?|n[º°o]|no)\\s*(?:de\\s*)?siniestro\\b\\s*[:#-]?\\s*([0-9\\-]{6,20})\\b"
-        );
-        Matcher mSiniestro = pSiniestro.matcher(texto);
-        if (mSiniestro.find()) {
-            datos.put("numeroSiniestro", mSiniestro.group(1));
-        }
-
-        // ORDEN (clave: soporta "Orden de Reparación N° 00344693")
-        Pattern pOrden = Pattern.compile(
-                "(?is)\\b(?:s\\/)?orden(?:\\s+de\\s+reparaci[oó]n)?\\b" +
-                        "(?:\\s*(?:n(?:ro)?\\.?|n[º°o]|no)\\s*[:#-]?)?\\s*" +
-                        "([0-9]{4,12})\\b"
-        );
-        Matcher mOrden = pOrden.matcher(texto);
-        if (mOrden.find()) {
-            datos.put("numeroOrden", mOrden.group(1));
-        }
-
-        return datos;
-    }
-
-    // DETECCIÓN DE ASEGURADORA
-
-    private static final Map<String, List<String>> ASEGURADORA_ALIASES = new LinkedHashMap<>() {{
-        put("Allianz", List.of("allianz"));
-        put("Berkley", List.of("berkley"));
-        put("Chubb", List.of("chubb"));
-        put("Cooperación", List.of("cooperacion", "cooperacion seguros"));
-        put("El Norte", List.of("el norte"));
-        put("Federación Patronal", List.of("federacion patronal", "federacion", "federación"));
-        put("HDI", List.of("hdi"));
-        put("Instituto Autárquico", List.of("instituto autarquico", "instituto autarquico provincial", "instituto seguro"));
-        put("La Caja", List.of(
-                "la caja",
-                "lacaja",
-                "caja de seguros",
-                "caja de seguros sa",
-                "caja de seguros s a",
-                "caja de seguros s.a"
-        ));
-        put("La Perseverancia", List.of("la perseverancia", "perseverancia"));
-        put("La Segunda", List.of("la segunda"));
-        put("Mapfre", List.of("mapfre"));
-        put("Meridional", List.of("meridional"));
-        put("Mercantil Andina", List.of("mercantil andina"));
-        put("Nación", List.of("nacion", "nación"));
-        put("Nativa", List.of("nativa"));
-        put("Orbis", List.of("orbis"));
-        put("Parana", List.of("parana", "paraná"));
-        put("Providencia", List.of("providencia"));
-        put("Provincia Seguros", List.of("provincia seguros"));
-        put("Rio Uruguay", List.of("rio uruguay", "río uruguay"));
-        put("Rivadavia", List.of("rivadavia"));
-        put("San Cristobal", List.of("san cristobal", "san cristóbal"));
-        put("Sancor Seguros", List.of("sancor", "sancor seguros"));
-        put("Segurcoop", List.of("segurcoop"));
-        put("Seguro Metal", List.of("seguro metal"));
-        put("Sura", List.of("sura"));
-        put("Swiss Medical", List.of("swiss medical", "swissmedical"));
-        put("Triunfo", List.of("triunfo"));
-        put("Victoria", List.of("victoria"));
-        put("Zurich / ex Qbe", List.of("zurich", "qbe"));
-        put("Boston", List.of("boston"));
-    }};
-
-
-    public Aseguradora detectarAseguradora(String asunto, String remitente) {
-        String texto = safe(asunto) + " " + safe(remitente);
-        String textoNorm = normalizarTextoDeteccion(texto);
-
-        String nombreDetectado = detectarNombreAseguradoraPorAliases(textoNorm);
-        if (nombreDetectado == null) return null;
-
-        return aseguradoraRepository.findByNombreIgnoreCase(nombreDetectado).orElse(null);
-    }
-
-    private Aseguradora detectarAseguradoraDesdePdf(Path pdfPath) {
-        try (PDDocument doc = PDDocument.load(pdfPath.toFile())) {
-            PDFTextStripper stripper = new PDFTextStripper();
-            String texto = stripper.getText(doc);
-            if (texto == null || texto.isBlank()) return null;
-
-            String textoNorm = normalizarTextoDeteccion(texto);
-
-            String nombreDetectado = detectarNombreAseguradoraPorAliases(textoNorm);
-            if (nombreDetectado == null) return null;
-
-            System.out.println("Aseguradora detectada en PDF: " + nombreDetectado);
-            return aseguradoraRepository.findByNombreIgnoreCase(nombreDetectado).orElse(null);
-
-        } catch (Exception e) {
-            System.out.println("No se pudo leer el PDF para detectar aseguradora: " + e.getMessage());
-            return null;
-        }
-    }
-
-    private String detectarNombreAseguradoraPorAliases(String textoNorm) {
-        for (Map.Entry<String, List<String>> entry : ASEGURADORA_ALIASES.entrySet()) {
-            String aseguradoraCanonica = entry.getKey();
-
-            for (String alias : entry.getValue()) {
-                String aliasNorm = normalizarTextoDeteccion(alias);
-                if (contieneFrase(textoNorm, aliasNorm)) {
-                    return aseguradoraCanonica;
-                }
-            }
-        }
-        return null;
-    }
-
-    private static String normalizarTextoDeteccion(String input) {
-        if (input == null) return "";
-        String lower = input.toLowerCase(Locale.ROOT);
-
-        String sinTildes = Normalizer.normalize(lower, Normalizer.Form.NFD)
-                .replaceAll("\\p{M}+", "");
-
-        String limpio = sinTildes.replaceAll("[^a-z0-9]+", " ");
-        return limpio.trim().replaceAll("\\s{2,}", " ");
-    }
-
-    private static boolean contieneFrase(String textoNorm, String fraseNorm) {
-        if (fraseNorm == null || fraseNorm.isBlank()) return false;
-        String t = " " + textoNorm + " ";
-        String f = " " + fraseNorm + " ";
-        return t.contains(f);
+    private static String recortar(String s, int largo) {
+        return (s == null || s.length() <= largo) ? s : s.substring(0, largo);
     }
 }
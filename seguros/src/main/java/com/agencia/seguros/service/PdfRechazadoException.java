@@ -0,0 +1,14 @@
+package com.agencia.seguros.service;
+
+import java.io.IOException;
+
+/**
+ * El PDF excede algún límite de extracción (tamaño, páginas o tiempo).
+ * No tiene sentido reintentarlo: el documento va a cuarentena.
+ */
+public class PdfRechazadoException extends IOException {
+
+    public PdfRechazadoException(String mensaje) {
+        super(mensaje);
+    }
+}
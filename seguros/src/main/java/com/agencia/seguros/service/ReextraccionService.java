@@ -0,0 +1,324 @@
+package com.agencia.seguros.service;
+
+import com.agencia.seguros.model.CheckpointReextraccion;
+import com.agencia.seguros.model.Sucursal;
+import com.agencia.seguros.repository.CheckpointReextraccionRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Re-extracción de facturas ya registradas, para aplicar mejoras en las reglas de
+ * extracción a los datos existentes.
+ * <p>
+ * Recorre facturas por keyset (id &gt; último revisado), re-parsea cada página en paralelo
+ * y escribe solo los números que cambiaron: un batch de UPDATE, un batch de
+ * HistorialFactura y el checkpoint, todo en una transacción por página. Un valor que la
+ * nueva extracción no encuentra no pisa el existente.
+ * <p>
+ * Pensada para correr en horario laboral: pocos hilos, tope de documentos por segundo y
+ * pausa entre páginas. Si se detiene (o se reinicia la aplicación) retoma desde el checkpoint.
+ */
+@Service
+public class ReextraccionService {
+
+    private static final String CHECKPOINT = "facturas";
+
+    private static final String SELECT_PAGINA = """
+        SELECT id, nombre_archivo, hash_contenido, numero_factura, numero_siniestro, numero_orden
+        FROM facturas
+        WHERE id > :ultimoId AND nombre_archivo IS NOT NULL
+        ORDER BY id
+        LIMIT :limite
+    """;
+
+    // null = el campo no cambió
+    private static final String UPDATE_FACTURA = """
+        UPDATE facturas
+        SET numero_factura = COALESCE(:numeroFactura, numero_factura),
+            sucursal = CASE WHEN :numeroFactura IS NULL THEN sucursal ELSE :sucursal END,
+            numero_siniestro = COALESCE(:numeroSiniestro, numero_siniestro),
+            numero_orden = COALESCE(:numeroOrden, numero_orden)
+        WHERE id = :id
+    """;
+
+    private static final String INSERT_HISTORIAL = """
+        INSERT INTO historial_factura (factura_id, fecha_movimiento, tipo, detalle, usuario)
+        VALUES (:facturaId, :fecha, 'REEXTRACCION', :detalle, 'sistema')
+    """;
+
+    private final ExtraccionPdfService extraccionPdfService;
+    private final AlmacenPdfService almacenPdfService;
+    private final CheckpointReextraccionRepository checkpointReextraccionRepository;
+    private final IndiceBusquedaFacturas indiceBusquedaFacturas;
+    private final NamedParameterJdbcTemplate jdbc;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.reextraccion.tamanio-pagina:100}")
+    private int tamanioPagina;
+
+    @Value("${app.reextraccion.paralelismo:2}")
+    private int paralelismo;
+
+    // 0 = sin tope
+    @Value("${app.reextraccion.max-documentos-por-segundo:5}")
+    private double maxDocumentosPorSegundo;
+
+    @Value("${app.reextraccion.pausa-entre-paginas-ms:500}")
+    private long pausaEntrePaginasMs;
+
+    private volatile boolean detenerSolicitado;
+    private Thread hilo;
+
+    public ReextraccionService(ExtraccionPdfService extraccionPdfService,
+                               AlmacenPdfService almacenPdfService,
+                               CheckpointReextraccionRepository checkpointReextraccionRepository,
+                               IndiceBusquedaFacturas indiceBusquedaFacturas,
+                               NamedParameterJdbcTemplate jdbc,
+                               PlatformTransactionManager transactionManager) {
+        this.extraccionPdfService = extraccionPdfService;
+        this.almacenPdfService = almacenPdfService;
+        this.checkpointReextraccionRepository = checkpointReextraccionRepository;
+        this.indiceBusquedaFacturas = indiceBusquedaFacturas;
+        this.jdbc = jdbc;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public record Estado(boolean enCurso,
+                         long ultimoId,
+                         long revisadas,
+                         long actualizadas,
+                         long errores,
+                         LocalDateTime fechaInicio,
+                         LocalDateTime fechaFin) {
+    }
+
+    /**
+     * Lanza la re-extracción en segundo plano (retoma una corrida incompleta).
+     *
+     * @return false si ya hay una en curso
+     */
+    public synchronized boolean iniciar() {
+        if (enCurso()) {
+            return false;
+        }
+        detenerSolicitado = false;
+        hilo = new Thread(this::ejecutar, "reextraccion");
+        hilo.setDaemon(true);
+        hilo.start();
+        return true;
+    }
+
+    /**
+     * Pide que se detenga al terminar la página actual; el checkpoint queda donde llegó.
+     */
+    @PreDestroy
+    public void detener() {
+        detenerSolicitado = true;
+    }
+
+    public synchronized boolean enCurso() {
+        return hilo != null && hilo.isAlive();
+    }
+
+    public Estado estado() {
+        CheckpointReextraccion c = checkpointReextraccionRepository.findByNombre(CHECKPOINT)
+                .orElseGet(() -> new CheckpointReextraccion(CHECKPOINT));
+        return new Estado(enCurso(), c.getUltimoId(), c.getRevisadas(), c.getActualizadas(), c.getErrores(),
+                c.getFechaInicio(), c.getFechaFin());
+    }
+
+    private void ejecutar() {
+        CheckpointReextraccion checkpoint = checkpointReextraccionRepository.findByNombre(CHECKPOINT)
+                .orElseGet(() -> new CheckpointReextraccion(CHECKPOINT));
+
+        if (checkpoint.getUltimoId() == 0) {
+            // Pasada nueva
+            checkpoint.setRevisadas(0);
+            checkpoint.setActualizadas(0);
+            checkpoint.setErrores(0);
+            checkpoint.setFechaInicio(LocalDateTime.now());
+            checkpoint.setFechaFin(null);
+        }
+        System.out.println("Re-extracción iniciada desde id " + checkpoint.getUltimoId());
+
+        ForkJoinPool pool = new ForkJoinPool(Math.max(paralelismo, 1));
+        long inicio = System.nanoTime();
+        long revisadasCorrida = 0;
+
+        try {
+            while (!detenerSolicitado) {
+                long inicioPagina = System.nanoTime();
+
+                List<Fila> pagina = jdbc.query(SELECT_PAGINA,
+                        new MapSqlParameterSource()
+                                .addValue("ultimoId", checkpoint.getUltimoId())
+                                .addValue("limite", Math.max(tamanioPagina, 1)),
+                        (rs, i) -> new Fila(rs.getLong("id"), rs.getString("nombre_archivo"), rs.getString("hash_contenido"),
+                                rs.getString("numero_factura"), rs.getString("numero_siniestro"), rs.getString("numero_orden")));
+
+                if (pagina.isEmpty()) {
+                    checkpoint.setUltimoId(0);
+                    checkpoint.setFechaFin(LocalDateTime.now());
+                    guardar(checkpoint);
+                    System.out.printf("Re-extracción terminada: %d revisadas, %d actualizadas, %d errores%n",
+                            checkpoint.getRevisadas(), checkpoint.getActualizadas(), checkpoint.getErrores());
+                    return;
+                }
+
+                List<Cambio> cambios = pool.submit(() -> pagina.parallelStream().map(this::reextraer).toList()).get();
+                aplicar(checkpoint, pagina, cambios);
+
+                revisadasCorrida += pagina.size();
+                double segundos = (System.nanoTime() - inicio) / 1_000_000_000.0;
+                System.out.printf("Re-extracción: hasta id %d, %d revisadas (%.1f docs/s), %d actualizadas, %d errores%n",
+                        checkpoint.getUltimoId(), checkpoint.getRevisadas(), revisadasCorrida / segundos,
+                        checkpoint.getActualizadas(), checkpoint.getErrores());
+
+                esperar(pagina.size(), inicioPagina);
+            }
+            System.out.println("Re-extracción detenida en id " + checkpoint.getUltimoId());
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            System.err.println("Error en la re-extracción: " + e.getCause().getMessage());
+        } catch (Exception e) {
+            System.err.println("Error en la re-extracción: " + e.getMessage());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Updates + historial + checkpoint de una página, en una sola transacción.
+     */
+    private void aplicar(CheckpointReextraccion checkpoint, List<Fila> pagina, List<Cambio> cambios) {
+        List<MapSqlParameterSource> updates = new ArrayList<>();
+        List<MapSqlParameterSource> historial = new ArrayList<>();
+        List<Long> reindexar = new ArrayList<>();
+        Timestamp ahora = Timestamp.valueOf(LocalDateTime.now());
+        int errores = 0;
+
+        for (Cambio c : cambios) {
+            if (c.error != null) {
+                errores++;
+                System.err.println("Re-extracción: factura " + c.id + ": " + c.error);
+                continue;
+            }
+            if (c.detalle.isEmpty()) {
+                continue;
+            }
+            Sucursal sucursal = Sucursal.desdeNumeroFactura(c.numeroFactura);
+            updates.add(new MapSqlParameterSource()
+                    .addValue("id", c.id)
+                    .addValue("numeroFactura", c.numeroFactura)
+                    .addValue("sucursal", (sucursal != null) ? sucursal.name() : null)
+                    .addValue("numeroSiniestro", c.numeroSiniestro)
+                    .addValue("numeroOrden", c.numeroOrden));
+            historial.add(new MapSqlParameterSource()
+                    .addValue("facturaId", c.id)
+                    .addValue("fecha", ahora)
+                    .addValue("detalle", recortar(c.detalle)));
+            reindexar.add(c.id);
+        }
+
+        int erroresPagina = errores;
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!updates.isEmpty()) {
+                jdbc.batchUpdate(UPDATE_FACTURA, updates.toArray(new MapSqlParameterSource[0]));
+                jdbc.batchUpdate(INSERT_HISTORIAL, historial.toArray(new MapSqlParameterSource[0]));
+                // Desde la base: en el UPDATE un null conserva el número anterior
+                indiceBusquedaFacturas.reindexar(reindexar);
+            }
+            checkpoint.setUltimoId(pagina.get(pagina.size() - 1).id);
+            checkpoint.setRevisadas(checkpoint.getRevisadas() + pagina.size());
+            checkpoint.setActualizadas(checkpoint.getActualizadas() + updates.size());
+            checkpoint.setErrores(checkpoint.getErrores() + erroresPagina);
+            guardar(checkpoint);
+        });
+    }
+
+    private Cambio reextraer(Fila fila) {
+        Path archivo = almacenPdfService.resolver(fila.nombreArchivo);
+        if (!Files.exists(archivo)) {
+            return Cambio.error(fila.id, "archivo no encontrado: " + fila.nombreArchivo);
+        }
+
+        try {
+            ResultadoExtraccion r = extraccionPdfService.extraer(archivo, null, fila.hashContenido);
+            StringBuilder detalle = new StringBuilder();
+
+            String numeroFactura = cambio("Número de factura", fila.numeroFactura, r.numeroFactura(), detalle);
+            String numeroSiniestro = cambio("Número de siniestro", fila.numeroSiniestro, r.numeroSiniestro(), detalle);
+            String numeroOrden = cambio("Número de orden", fila.numeroOrden, r.numeroOrden(), detalle);
+
+            return new Cambio(fila.id, numeroFactura, numeroSiniestro, numeroOrden, detalle.toString(), null);
+        } catch (Exception e) {
+            return Cambio.error(fila.id, (e.getMessage() != null) ? e.getMessage() : e.getClass().getSimpleName());
+        }
+    }
+
+    /**
+     * Devuelve el valor nuevo si cambió (y lo anota en el detalle) o null si no hay que tocarlo.
+     */
+    private static String cambio(String campo, String anterior, String nuevo, StringBuilder detalle) {
+        if (nuevo == null || Objects.equals(anterior, nuevo)) {
+            return null;
+        }
+        if (detalle.length() > 0) detalle.append("; ");
+        detalle.append(campo).append(": ").append(anterior != null ? anterior : "-").append(" -> ").append(nuevo);
+        return nuevo;
+    }
+
+    /**
+     * Throttling: respeta el tope de documentos por segundo y la pausa entre páginas.
+     */
+    private void esperar(int documentos, long inicioPagina) throws InterruptedException {
+        long esperaMs = pausaEntrePaginasMs;
+        if (maxDocumentosPorSegundo > 0) {
+            long minimoMs = (long) (documentos * 1000 / maxDocumentosPorSegundo);
+            long transcurridoMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicioPagina);
+            esperaMs = Math.max(esperaMs, minimoMs - transcurridoMs);
+        }
+        if (esperaMs > 0) {
+            TimeUnit.MILLISECONDS.sleep(esperaMs);
+        }
+    }
+
+    private void guardar(CheckpointReextraccion checkpoint) {
+        checkpoint.setFechaActualizacion(LocalDateTime.now());
+        checkpointReextraccionRepository.save(checkpoint);
+    }
+
+    private static String recortar(String detalle) {
+        // historial_factura.detalle es de 500
+        return (detalle.length() > 500) ? detalle.substring(0, 500) : detalle;
+    }
+
+    private record Fila(long id, String nombreArchivo, String hashContenido, String numeroFactura, String numeroSiniestro, String numeroOrden) {
+    }
+
+    private record Cambio(long id, String numeroFactura, String numeroSiniestro, String numeroOrden,
+                          String detalle, String error) {
+
+        static Cambio error(long id, String error) {
+            return new Cambio(id, null, null, null, "", error);
+        }
+    }
+}
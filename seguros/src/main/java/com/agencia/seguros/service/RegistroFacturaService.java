@@ -0,0 +1,105 @@
+package com.agencia.seguros.service;
+
+import com.agencia.seguros.model.Aseguradora;
+import com.agencia.seguros.model.EstadoFactura;
+import com.agencia.seguros.model.EtapaIngesta;
+import com.agencia.seguros.model.Factura;
+import com.agencia.seguros.model.IngestaAdjunto;
+import com.agencia.seguros.repository.FacturaRepository;
+import com.agencia.seguros.repository.IngestaAdjuntoRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Etapa de persistencia del pipeline de ingesta: arma la factura con los datos ya
+ * extraídos y la registra junto con su historial.
+ */
+@Service
+public class RegistroFacturaService {
+
+    private final FacturaRepository facturaRepository;
+    private final CatalogoAseguradoras catalogoAseguradoras;
+    private final HistorialFacturaService historialFacturaService;
+    private final IngestaAdjuntoRepository ingestaAdjuntoRepository;
+    private final DetectorAseguradoras detectorAseguradoras;
+
+    public RegistroFacturaService(FacturaRepository facturaRepository,
+                                  CatalogoAseguradoras catalogoAseguradoras,
+                                  HistorialFacturaService historialFacturaService,
+                                  IngestaAdjuntoRepository ingestaAdjuntoRepository,
+                                  DetectorAseguradoras detectorAseguradoras) {
+        this.facturaRepository = facturaRepository;
+        this.catalogoAseguradoras = catalogoAseguradoras;
+        this.historialFacturaService = historialFacturaService;
+        this.ingestaAdjuntoRepository = ingestaAdjuntoRepository;
+        this.detectorAseguradoras = detectorAseguradoras;
+    }
+
+    /**
+     * Factura + historial de creación + cierre del adjunto en staging, todo en una
+     * sola transacción: o queda todo registrado o el adjunto sigue pendiente.
+     */
+    @Transactional
+    public Factura registrar(IngestaAdjunto adjunto) {
+        Factura factura = new Factura();
+        factura.setAsunto(adjunto.getAsunto());
+        factura.setRemitente(adjunto.getRemitente());
+        factura.setNombreArchivo(adjunto.getNombreArchivo());
+        factura.setHashContenido(adjunto.getHashContenido());
+        factura.setFechaRecepcion(adjunto.getFechaRecepcion());
+
+        // guardar messageId
+        if (adjunto.getMessageId() != null && !adjunto.getMessageId().isBlank()) {
+            factura.setMessageId(adjunto.getMessageId());
+        }
+
+        factura.setFechaFactura(adjunto.getFechaFactura());
+        factura.setNumeroFactura(adjunto.getNumeroFactura());
+        factura.setNumeroSiniestro(adjunto.getNumeroSiniestro());
+        factura.setNumeroOrden(adjunto.getNumeroOrden());
+
+        factura.setEstado(EstadoFactura.NUEVA);
+
+        Aseguradora aseguradora = null;
+        if (adjunto.getAseguradoraDetectada() != null) {
+            aseguradora = catalogoAseguradoras.buscarPorNombre(adjunto.getAseguradoraDetectada()).orElse(null);
+        }
+        if (aseguradora == null) {
+            aseguradora = detectarAseguradora(adjunto.getAsunto(), adjunto.getRemitente());
+        }
+
+        if (aseguradora != null) {
+            factura.setAseguradora(aseguradora);
+        } else {
+            factura.setEstado(EstadoFactura.PENDIENTE_ASIGNACION);
+        }
+
+        facturaRepository.save(factura);
+
+        historialFacturaService.registrarAccionSimple(factura,
+                "CREACION",
+                "Factura creada desde correo IMAP.",
+                "sistema");
+
+        adjunto.setFacturaId(factura.getId());
+        adjunto.avanzarA(EtapaIngesta.COMPLETADA);
+        ingestaAdjuntoRepository.save(adjunto);
+
+        return factura;
+    }
+
+    // DETECCIÓN DE ASEGURADORA
+
+    public Aseguradora detectarAseguradora(String asunto, String remitente) {
+        String texto = safe(asunto) + " " + safe(remitente);
+
+        String nombreDetectado = detectorAseguradoras.detectar(texto);
+        if (nombreDetectado == null) return null;
+
+        return catalogoAseguradoras.buscarPorNombre(nombreDetectado).orElse(null);
+    }
+
+    private String safe(String s) {
+        return (s == null) ? "" : s;
+    }
+}
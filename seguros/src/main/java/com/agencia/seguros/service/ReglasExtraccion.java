@@ -0,0 +1,140 @@
+package com.agencia.seguros.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Reglas de extracción ya compiladas (inmutables). Se arman una vez por versión del
+ * archivo de reglas y se comparten entre hilos; para cada aseguradora se precalcula la
+ * lista final de patrones por campo (los propios primero, después los genéricos).
+ * Las reglas de nombre de archivo y asunto son aparte: no se combinan con las del PDF.
+ */
+public final class ReglasExtraccion {
+
+    static final String FECHA_FACTURA = "fechaFactura";
+    static final String NUMERO_FACTURA = "numeroFactura";
+    static final String NUMERO_SINIESTRO = "numeroSiniestro";
+    static final String NUMERO_ORDEN = "numeroOrden";
+
+    private static final List<String> CAMPOS = List.of(FECHA_FACTURA, NUMERO_FACTURA, NUMERO_SINIESTRO, NUMERO_ORDEN);
+
+    /**
+     * Patrones por campo, en orden de prueba.
+     */
+    public record Campos(List<Pattern> fechaFactura,
+                         List<Pattern> numeroFactura,
+                         List<Pattern> numeroSiniestro,
+                         List<Pattern> numeroOrden) {
+    }
+
+    private final String version;
+    private final Campos generico;
+    private final Map<String, Campos> porAseguradora;
+    private final Campos nombreArchivo;
+    private final Campos asunto;
+
+    private ReglasExtraccion(String version, Campos generico, Map<String, Campos> porAseguradora,
+                             Campos nombreArchivo, Campos asunto) {
+        this.version = version;
+        this.generico = generico;
+        this.porAseguradora = porAseguradora;
+        this.nombreArchivo = nombreArchivo;
+        this.asunto = asunto;
+    }
+
+    /**
+     * Compila las reglas leídas del archivo.
+     *
+     * @param generico       campo -> expresiones
+     * @param porAseguradora nombre de aseguradora -> (campo -> expresiones)
+     * @param nombreArchivo  campo -> expresiones sobre el nombre del adjunto
+     * @param asunto         campo -> expresiones sobre el asunto del correo
+     * @throws IllegalArgumentException si un campo no existe o una expresión no compila
+     */
+    public static ReglasExtraccion compilar(String version,
+                                            Map<String, List<String>> generico,
+                                            Map<String, Map<String, List<String>>> porAseguradora,
+                                            Map<String, List<String>> nombreArchivo,
+                                            Map<String, List<String>> asunto) {
+        Map<String, List<Pattern>> base = compilarCampos("generico", generico);
+
+        Map<String, Campos> aseguradoras = new HashMap<>();
+        porAseguradora.forEach((nombre, reglas) -> {
+            Map<String, List<Pattern>> propias = compilarCampos(nombre, reglas);
+            Map<String, List<Pattern>> combinadas = new HashMap<>();
+            for (String campo : CAMPOS) {
+                List<Pattern> lista = new ArrayList<>(propias.get(campo));
+                lista.addAll(base.get(campo));
+                combinadas.put(campo, lista);
+            }
+            aseguradoras.put(CatalogoAseguradoras.normalizar(nombre), campos(combinadas));
+        });
+
+        return new ReglasExtraccion(version, campos(base), Collections.unmodifiableMap(aseguradoras),
+                campos(compilarCampos("nombreArchivo", nombreArchivo)),
+                campos(compilarCampos("asunto", asunto)));
+    }
+
+    /**
+     * Identifica el contenido del archivo de reglas (cambia con cualquier edición).
+     */
+    public String version() {
+        return version;
+    }
+
+    public Campos para(String aseguradora) {
+        if (aseguradora == null) {
+            return generico;
+        }
+        return porAseguradora.getOrDefault(CatalogoAseguradoras.normalizar(aseguradora), generico);
+    }
+
+    public Campos nombreArchivo() {
+        return nombreArchivo;
+    }
+
+    public Campos asunto() {
+        return asunto;
+    }
+
+    public int cantidadAseguradoras() {
+        return porAseguradora.size();
+    }
+
+    private static Map<String, List<Pattern>> compilarCampos(String origen, Map<String, List<String>> reglas) {
+        Map<String, List<Pattern>> compiladas = new HashMap<>();
+        CAMPOS.forEach(campo -> compiladas.put(campo, new ArrayList<>()));
+        if (reglas == null) {
+            return compiladas;
+        }
+
+        reglas.forEach((campo, expresiones) -> {
+            List<Pattern> lista = compiladas.get(campo);
+            if (lista == null) {
+                throw new IllegalArgumentException("Campo desconocido en reglas de " + origen + ": " + campo);
+            }
+            for (String expresion : expresiones) {
+                try {
+                    lista.add(Pattern.compile(expresion));
+                } catch (PatternSyntaxException e) {
+                    throw new IllegalArgumentException("Expresión inválida en " + origen + "." + campo + ": " + e.getMessage(), e);
+                }
+            }
+        });
+        return compiladas;
+    }
+
+    private static Campos campos(Map<String, List<Pattern>> porCampo) {
+        return new Campos(
+                List.copyOf(porCampo.get(FECHA_FACTURA)),
+                List.copyOf(porCampo.get(NUMERO_FACTURA)),
+                List.copyOf(porCampo.get(NUMERO_SINIESTRO)),
+                List.copyOf(porCampo.get(NUMERO_ORDEN))
+        );
+    }
+}
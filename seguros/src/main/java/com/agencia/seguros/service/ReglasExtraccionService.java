@@ -0,0 +1,118 @@
+package com.agencia.seguros.service;
+
+import com.agencia.seguros.config.ExtraccionProperties;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.yaml.snakeyaml.Yaml;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Carga las reglas de extracción desde YAML y las mantiene compiladas.
+ * <p>
+ * Si app.extraccion.archivo-reglas apunta a un archivo, se revisa periódicamente y
+ * ante un cambio se recompila y se publica de forma atómica; si el archivo nuevo tiene
+ * errores se loguean y siguen vigentes las reglas anteriores. Sin archivo externo se
+ * usan las reglas incluidas en la aplicación (reglas-extraccion.yml).
+ */
+@Service
+public class ReglasExtraccionService {
+
+    private static final String REGLAS_INCLUIDAS = "reglas-extraccion.yml";
+
+    private final ExtraccionProperties extraccionProperties;
+
+    private volatile ReglasExtraccion reglas;
+    private FileTime ultimaModificacion;
+
+    public ReglasExtraccionService(ExtraccionProperties extraccionProperties) throws IOException {
+        this.extraccionProperties = extraccionProperties;
+
+        Path archivo = archivoExterno();
+        if (archivo != null) {
+            ultimaModificacion = Files.getLastModifiedTime(archivo);
+            reglas = compilar(Files.readAllBytes(archivo));
+            System.out.println("Reglas de extracción cargadas de " + archivo + " (versión " + reglas.version() + ")");
+        } else {
+            try (InputStream in = new ClassPathResource(REGLAS_INCLUIDAS).getInputStream()) {
+                reglas = compilar(in.readAllBytes());
+            }
+        }
+    }
+
+    public ReglasExtraccion actuales() {
+        return reglas;
+    }
+
+    @Scheduled(fixedDelayString = "${app.extraccion.reglas-recarga-ms:10000}")
+    public synchronized void recargarSiCambio() {
+        Path archivo = archivoExterno();
+        if (archivo == null) {
+            return;
+        }
+
+        try {
+            FileTime modificacion = Files.getLastModifiedTime(archivo);
+            if (modificacion.equals(ultimaModificacion)) {
+                return;
+            }
+            ultimaModificacion = modificacion;
+
+            ReglasExtraccion nuevas = compilar(Files.readAllBytes(archivo));
+            if (nuevas.version().equals(reglas.version())) {
+                return;
+            }
+            reglas = nuevas;
+            System.out.println("Reglas de extracción recargadas (versión " + nuevas.version() + ", "
+                    + nuevas.cantidadAseguradoras() + " aseguradoras con reglas propias)");
+
+        } catch (Exception e) {
+            System.err.println("No se pudieron recargar las reglas de extracción; siguen las anteriores: " + e.getMessage());
+        }
+    }
+
+    private Path archivoExterno() {
+        String ruta = extraccionProperties.getArchivoReglas();
+        return (ruta == null || ruta.isBlank()) ? null : Path.of(ruta);
+    }
+
+    @SuppressWarnings("unchecked")
+    static ReglasExtraccion compilar(byte[] contenido) {
+        Object raiz = new Yaml().load(new String(contenido, StandardCharsets.UTF_8));
+        if (!(raiz instanceof Map<?, ?> mapa)) {
+            throw new IllegalArgumentException("El archivo de reglas debe ser un mapa YAML");
+        }
+
+        Map<String, List<String>> generico = (Map<String, List<String>>) mapa.get("generico");
+        Map<String, Map<String, List<String>>> aseguradoras = (Map<String, Map<String, List<String>>>) mapa.get("aseguradoras");
+        Map<String, List<String>> nombreArchivo = (Map<String, List<String>>) mapa.get("nombreArchivo");
+        Map<String, List<String>> asunto = (Map<String, List<String>>) mapa.get("asunto");
+
+        return ReglasExtraccion.compilar(version(contenido),
+                (generico != null) ? generico : Map.of(),
+                (aseguradoras != null) ? aseguradoras : new LinkedHashMap<>(),
+                (nombreArchivo != null) ? nombreArchivo : Map.of(),
+                (asunto != null) ? asunto : Map.of());
+    }
+
+    private static String version(byte[] contenido) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(contenido);
+            return HexFormat.of().formatHex(hash, 0, 6);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
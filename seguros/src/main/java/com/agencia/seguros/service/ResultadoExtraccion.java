@@ -0,0 +1,37 @@
+package com.agencia.seguros.service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+
+/**
+ * Resultado inmutable de procesar un PDF una sola vez:
+ * fecha, números y nombre canónico de la aseguradora detectada (o null),
+ * junto con lo que tardó cada etapa.
+ */
+public record ResultadoExtraccion(LocalDate fechaFactura,
+                                  String numeroFactura,
+                                  String numeroSiniestro,
+                                  String numeroOrden,
+                                  String aseguradora,
+                                  Tiempos tiempos) {
+
+    /**
+     * Duración de cada etapa: carga del documento, stripping de texto,
+     * parseo de campos y detección de aseguradora.
+     */
+    public record Tiempos(Duration carga, Duration texto, Duration parseo, Duration deteccion) {
+
+        public Duration total() {
+            return carga.plus(texto).plus(parseo).plus(deteccion);
+        }
+
+        @Override
+        public String toString() {
+            return "carga=" + carga.toMillis() + "ms"
+                    + " texto=" + texto.toMillis() + "ms"
+                    + " parseo=" + parseo.toMillis() + "ms"
+                    + " deteccion=" + deteccion.toMillis() + "ms"
+                    + " total=" + total().toMillis() + "ms";
+        }
+    }
+}
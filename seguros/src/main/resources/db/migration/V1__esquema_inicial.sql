@@ -0,0 +1,53 @@
+-- Esquema con el que arrancó la aplicación (antes lo creaba Hibernate con ddl-auto).
+-- Una base que ya lo tiene se toma como línea de base (spring.flyway.baseline-on-migrate).
+
+CREATE TABLE aseguradoras (
+    id     BIGINT       NOT NULL AUTO_INCREMENT,
+    nombre VARCHAR(255) NOT NULL,
+    email  VARCHAR(255),
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE facturas (
+    id                        BIGINT       NOT NULL AUTO_INCREMENT,
+    aseguradora_id            BIGINT,
+    estado                    VARCHAR(255),
+    observaciones_admin       VARCHAR(255),
+    asunto                    VARCHAR(255),
+    remitente                 VARCHAR(255),
+    nombre_archivo            VARCHAR(255),
+    nombre_archivo_adicional  VARCHAR(255),
+    ruta_archivo              VARCHAR(255),
+    fecha_recepcion           DATETIME(6),
+    fecha_factura             DATE,
+    fecha_envio               DATETIME(6),
+    numero_factura            VARCHAR(255),
+    numero_siniestro          VARCHAR(255),
+    numero_orden              VARCHAR(255),
+    message_id                VARCHAR(255),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_facturas_message_id UNIQUE (message_id),
+    CONSTRAINT fk_facturas_aseguradora FOREIGN KEY (aseguradora_id) REFERENCES aseguradoras (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE historial_factura (
+    id               BIGINT       NOT NULL AUTO_INCREMENT,
+    factura_id       BIGINT       NOT NULL,
+    fecha_movimiento DATETIME(6),
+    tipo             VARCHAR(255),
+    detalle          VARCHAR(500),
+    estado_anterior  VARCHAR(255),
+    estado_nuevo     VARCHAR(255),
+    usuario          VARCHAR(255),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_historial_factura FOREIGN KEY (factura_id) REFERENCES facturas (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE usuario (
+    id       BIGINT       NOT NULL AUTO_INCREMENT,
+    username VARCHAR(255),
+    password VARCHAR(255),
+    rol      VARCHAR(255),
+    sucursal VARCHAR(255),
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
@@ -0,0 +1,79 @@
+-- Spool de adjuntos, checkpoints (correo, importación masiva, re-extracción) y cache de extracción.
+
+CREATE TABLE checkpoints_correo (
+    id                  BIGINT       NOT NULL AUTO_INCREMENT,
+    carpeta             VARCHAR(255) NOT NULL,
+    uid_validity        BIGINT,
+    ultimo_uid          BIGINT       NOT NULL,
+    fecha_actualizacion DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_checkpoints_correo_carpeta UNIQUE (carpeta)
+) ENGINE = InnoDB;
+
+CREATE TABLE ingesta_adjuntos (
+    id                    BIGINT        NOT NULL AUTO_INCREMENT,
+    etapa                 VARCHAR(30)   NOT NULL,
+    message_id            VARCHAR(255),
+    asunto                VARCHAR(255),
+    remitente             VARCHAR(255),
+    nombre_archivo        VARCHAR(255)  NOT NULL,
+    nombre_original       VARCHAR(255),
+    hash_contenido        VARCHAR(64),
+    fecha_recepcion       DATETIME(6),
+    fecha_factura         DATE,
+    numero_factura        VARCHAR(255),
+    numero_siniestro      VARCHAR(255),
+    numero_orden          VARCHAR(255),
+    aseguradora_detectada VARCHAR(255),
+    intentos              INT           NOT NULL,
+    ultimo_error          VARCHAR(1000),
+    proximo_intento       DATETIME(6),
+    factura_id            BIGINT,
+    fecha_actualizacion   DATETIME(6),
+    PRIMARY KEY (id),
+    INDEX idx_ingesta_etapa_proximo (etapa, proximo_intento),
+    INDEX idx_ingesta_hash_contenido (hash_contenido)
+) ENGINE = InnoDB;
+
+CREATE TABLE checkpoints_importacion (
+    id                  BIGINT        NOT NULL AUTO_INCREMENT,
+    directorio          VARCHAR(500)  NOT NULL,
+    ultimo_archivo      VARCHAR(1000),
+    importados          BIGINT        NOT NULL,
+    fecha_actualizacion DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_checkpoints_importacion_directorio UNIQUE (directorio)
+) ENGINE = InnoDB;
+
+CREATE TABLE checkpoints_reextraccion (
+    id                  BIGINT       NOT NULL AUTO_INCREMENT,
+    nombre              VARCHAR(255) NOT NULL,
+    ultimo_id           BIGINT       NOT NULL,
+    revisadas           BIGINT       NOT NULL,
+    actualizadas        BIGINT       NOT NULL,
+    errores             BIGINT       NOT NULL,
+    fecha_inicio        DATETIME(6),
+    fecha_fin           DATETIME(6),
+    fecha_actualizacion DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_checkpoints_reextraccion_nombre UNIQUE (nombre)
+) ENGINE = InnoDB;
+
+CREATE TABLE cache_extracciones (
+    id              BIGINT       NOT NULL AUTO_INCREMENT,
+    hash_contenido  VARCHAR(64)  NOT NULL,
+    perfil          VARCHAR(50)  NOT NULL,
+    version_reglas  VARCHAR(20)  NOT NULL,
+    fecha_factura   DATE,
+    numero_factura  VARCHAR(255),
+    numero_siniestro VARCHAR(255),
+    numero_orden    VARCHAR(255),
+    aseguradora     VARCHAR(255),
+    textos          MEDIUMBLOB   NOT NULL,
+    tamanio         INT          NOT NULL,
+    fecha_creacion  DATETIME(6)  NOT NULL,
+    ultimo_acceso   DATETIME(6)  NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_cache_extraccion_hash_perfil UNIQUE (hash_contenido, perfil),
+    INDEX idx_cache_extraccion_ultimo_acceso (ultimo_acceso)
+) ENGINE = InnoDB;
@@ -0,0 +1,23 @@
+-- facturas: hash del PDF (almacén por contenido), sucursal derivada del número,
+-- orden del listado por cursor e índice de búsqueda por trigramas.
+-- La sucursal y los trigramas de las facturas existentes los completan
+-- CompletarSucursalRunner e IndexarBusquedaRunner al arrancar.
+
+ALTER TABLE facturas ADD COLUMN hash_contenido VARCHAR(64);
+ALTER TABLE facturas ADD COLUMN sucursal VARCHAR(20);
+
+CREATE INDEX idx_facturas_hash_contenido ON facturas (hash_contenido);
+CREATE INDEX idx_facturas_fecha_id ON facturas (fecha_factura, id);
+CREATE INDEX idx_facturas_sucursal_fecha_id ON facturas (sucursal, fecha_factura, id);
+CREATE INDEX idx_facturas_numero_factura ON facturas (numero_factura);
+CREATE INDEX idx_facturas_numero_siniestro ON facturas (numero_siniestro);
+CREATE INDEX idx_facturas_numero_orden ON facturas (numero_orden);
+
+CREATE TABLE facturas_trigramas (
+    factura_id BIGINT     NOT NULL,
+    campo      VARCHAR(1) NOT NULL,
+    trigrama   VARCHAR(3) NOT NULL,
+    PRIMARY KEY (campo, factura_id, trigrama),
+    INDEX idx_trigramas_busqueda (campo, trigrama, factura_id),
+    INDEX idx_trigramas_factura (factura_id)
+) ENGINE = InnoDB;
@@ -0,0 +1,12 @@
+-- Índices para los filtros del listado, todos terminando en el orden de la página
+-- (fecha_factura DESC, id DESC) para que el LIMIT corte sin ordenar en memoria.
+-- El de sucursal ya existe (idx_facturas_sucursal_fecha_id, V3).
+
+-- estado = ?
+CREATE INDEX idx_facturas_estado_fecha_id ON facturas (estado, fecha_factura, id);
+
+-- aseguradora_id = ? (también sirve de índice para la FK)
+CREATE INDEX idx_facturas_aseguradora_fecha_id ON facturas (aseguradora_id, fecha_factura, id);
+
+-- Vencidas: fecha_envio IS NULL AND fecha_factura < ?
+CREATE INDEX idx_facturas_envio_fecha_id ON facturas (fecha_envio, fecha_factura, id);
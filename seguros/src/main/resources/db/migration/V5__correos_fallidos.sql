@@ -0,0 +1,18 @@
+-- Correos que fallaron al sincronizar la carpeta IMAP (bajar adjuntos o pasarlos al spool).
+-- Con intentos >= correo.imap.max-intentos el correo queda en DEAD_LETTER y el checkpoint
+-- de la carpeta puede pasarlo; desde la administración se reintenta por UID.
+
+CREATE TABLE correos_fallidos (
+    id                  BIGINT        NOT NULL AUTO_INCREMENT,
+    carpeta             VARCHAR(255)  NOT NULL,
+    uid_validity        BIGINT        NOT NULL,
+    uid                 BIGINT        NOT NULL,
+    message_id          VARCHAR(255),
+    asunto              VARCHAR(255),
+    remitente           VARCHAR(255),
+    intentos            INT           NOT NULL,
+    ultimo_error        VARCHAR(1000),
+    fecha_actualizacion DATETIME(6),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_correos_fallidos_uid UNIQUE (carpeta, uid_validity, uid)
+) ENGINE = InnoDB;
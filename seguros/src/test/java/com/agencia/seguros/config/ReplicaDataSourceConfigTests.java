@@ -0,0 +1,67 @@
+package com.agencia.seguros.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Solo lo marcado con {@link LecturaReplica} va a la réplica; una transacción read-only
+ * cualquiera (como las de los repositorios) sigue en la primaria.
+ */
+class ReplicaDataSourceConfigTests {
+
+    private DataSource dataSource;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate soloLectura;
+
+    @BeforeEach
+    void preparar() {
+        ReplicaDataSourceConfig config = new ReplicaDataSourceConfig();
+        ReflectionTestUtils.setField(config, "url", "jdbc:h2:mem:primaria;DB_CLOSE_DELAY=-1");
+        ReflectionTestUtils.setField(config, "username", "sa");
+        ReflectionTestUtils.setField(config, "password", "");
+        ReflectionTestUtils.setField(config, "replicaUrl", "jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1");
+        ReflectionTestUtils.setField(config, "replicaUsername", "sa");
+        ReflectionTestUtils.setField(config, "replicaPassword", "");
+        ReflectionTestUtils.setField(config, "replicaMaximoConexiones", 2);
+
+        dataSource = config.dataSource();
+        jdbc = new JdbcTemplate(dataSource);
+        soloLectura = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        soloLectura.setReadOnly(true);
+    }
+
+    @AfterEach
+    void cerrar() {
+        Map<Object, DataSource> bases = ((AbstractRoutingDataSource) dataSource).getResolvedDataSources();
+        bases.values().forEach(b -> ((HikariDataSource) b).close());
+    }
+
+    @Test
+    void transaccionReadOnlySinMarcaVaALaPrimaria() {
+        assertEquals("PRIMARIA", soloLectura.execute(status -> base()));
+        assertEquals("PRIMARIA", base());
+    }
+
+    @Test
+    void lecturaMarcadaVaALaReplica() {
+        assertEquals("REPLICA", LecturaReplica.ejecutar(() -> soloLectura.execute(status -> base())));
+        // La marca no queda puesta en el hilo
+        assertEquals("PRIMARIA", base());
+    }
+
+    private String base() {
+        return jdbc.queryForObject("SELECT DATABASE()", String.class);
+    }
+}
@@ -0,0 +1,108 @@
+package com.agencia.seguros.repository;
+
+import com.agencia.seguros.model.Aseguradora;
+import com.agencia.seguros.model.EstadoFactura;
+import com.agencia.seguros.model.Factura;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.boot.jpa.test.autoconfigure.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+// El esquema lo crean las migraciones (H2 en modo MySQL) y Hibernate lo valida contra las
+// entidades, igual que en dev: una migración que no corre o no coincide rompe este test
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.datasource.url=jdbc:h2:mem:facturas;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=validate"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class FacturaListadoRepositoryTests {
+
+    private static final Sort ORDEN = Sort.by(Sort.Direction.DESC, "fechaFactura").and(Sort.by(Sort.Direction.DESC, "id"));
+
+    @Autowired
+    private FacturaRepository facturaRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics estadisticas;
+
+    @BeforeEach
+    void cargarFacturas() {
+        Aseguradora[] aseguradoras = new Aseguradora[5];
+        for (int i = 0; i < aseguradoras.length; i++) {
+            Aseguradora a = new Aseguradora();
+            a.setNombre("Aseguradora " + i);
+            // La primera sin email, como algunas de producción
+            a.setEmail(i == 0 ? null : "aseguradora" + i + "@example.com");
+            aseguradoras[i] = entityManager.persist(a);
+        }
+
+        // 60 facturas repartidas entre las 5 aseguradoras, cada 6 una sin aseguradora
+        for (int i = 0; i < 60; i++) {
+            Factura f = new Factura();
+            f.setEstado(EstadoFactura.NUEVA);
+            f.setNumeroFactura(String.format("0104-%08d", i));
+            f.setFechaFactura(LocalDate.of(2025, 1, 1).plusDays(i));
+            f.setAseguradora(i % 6 == 0 ? null : aseguradoras[i % 5]);
+            entityManager.persist(f);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+    }
+
+    @Test
+    void paginaEsUnSelectMasUnCount() {
+        for (int size : new int[]{10, 50}) {
+            estadisticas.clear();
+
+            Page<FacturaListado> pagina = facturaRepository.listar(Specification.allOf(), PageRequest.of(0, size, ORDEN));
+
+            assertEquals(size, pagina.getNumberOfElements());
+            assertEquals(60, pagina.getTotalElements());
+            assertEquals(2, estadisticas.getPrepareStatementCount());
+            assertEquals(0, estadisticas.getEntityLoadCount());
+        }
+    }
+
+    @Test
+    void cursorEsUnSoloSelect() {
+        List<FacturaListado> filas = facturaRepository.listar(Specification.allOf(), ORDEN, 21);
+
+        assertEquals(21, filas.size());
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+        assertEquals(LocalDate.of(2025, 1, 1).plusDays(59), filas.get(0).getFechaFactura());
+        assertEquals("Aseguradora 4", filas.get(0).getAseguradoraNombre());
+    }
+
+    @Test
+    void facturaSinAseguradoraQuedaEnElListado() {
+        List<FacturaListado> filas = facturaRepository.listar(Specification.allOf(), ORDEN, 60);
+
+        assertEquals(60, filas.size());
+        // fecha 2025-01-01 + 54 días -> i = 54, múltiplo de 6
+        assertNull(filas.get(5).getAseguradoraNombre());
+    }
+}
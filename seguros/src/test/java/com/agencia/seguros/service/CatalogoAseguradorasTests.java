@@ -0,0 +1,67 @@
+package com.agencia.seguros.service;
+
+import com.agencia.seguros.model.Aseguradora;
+import com.agencia.seguros.repository.AseguradoraRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * El catálogo alimenta los alias del detector con las aseguradoras de la base.
+ */
+class CatalogoAseguradorasTests {
+
+    private final List<Aseguradora> enBase = new ArrayList<>();
+    private DetectorAseguradoras detector;
+    private CatalogoAseguradoras catalogo;
+
+    @BeforeEach
+    void preparar() {
+        AseguradoraRepository repository = mock(AseguradoraRepository.class);
+        when(repository.findAll(any(Sort.class))).thenAnswer(i -> List.copyOf(enBase));
+
+        detector = new DetectorAseguradoras();
+        catalogo = new CatalogoAseguradoras(repository, detector);
+        enBase.add(aseguradora("La Segunda"));
+    }
+
+    @Test
+    void aseguradoraNuevaSeDetectaDespuesDeInvalidar() {
+        catalogo.listarOrdenadas();
+        assertNull(detector.detectar("Factura Galeno Seguros 0104-00000001"));
+
+        enBase.add(aseguradora("Galeno Seguros"));
+        catalogo.invalidar();
+        catalogo.listarOrdenadas();
+
+        assertEquals("Galeno Seguros", detector.detectar("Factura Galeno Seguros 0104-00000001"));
+        assertEquals("Galeno Seguros", catalogo.buscarPorNombre(detector.detectar("galeno seguros")).orElseThrow().getNombre());
+    }
+
+    @Test
+    void losAliasFijosConservanLaPrioridad() {
+        enBase.add(aseguradora("Segunda"));
+        catalogo.listarOrdenadas();
+
+        // "La Segunda" ya es alias fijo; la de la base va al final
+        assertEquals("La Segunda", detector.detectar("orden de la segunda"));
+        assertEquals("Segunda", detector.detectar("orden segunda"));
+    }
+
+    private static Aseguradora aseguradora(String nombre) {
+        Aseguradora a = new Aseguradora();
+        a.setId((long) nombre.hashCode());
+        a.setNombre(nombre);
+        a.setEmail("contacto@example.com");
+        return a;
+    }
+}
@@ -0,0 +1,80 @@
+package com.agencia.seguros.service;
+
+import com.agencia.seguros.config.ExtraccionProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.concurrent.Semaphore;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Extracción escalonada de adjuntos (cuándo alcanza con el nombre del archivo y el asunto;
+ * ahí el PDF no existe, así que cualquier intento de abrirlo falla) y límite de lugares.
+ */
+class ExtraccionPdfServiceTests {
+
+    private static final String ADJUNTO = "20251211_152645_FC_A-0104-00062226.pdf";
+
+    @TempDir
+    Path carpeta;
+
+    private ExtraccionPdfService service;
+    private ExtraccionProperties properties;
+    private Path pdfInexistente;
+
+    @BeforeEach
+    void preparar() throws IOException {
+        properties = new ExtraccionProperties();
+        service = new ExtraccionPdfService(new DetectorAseguradoras(), properties, new ReglasExtraccionService(properties));
+        pdfInexistente = carpeta.resolve("no-existe.pdf");
+    }
+
+    @Test
+    void conTodoEnElNombreYElAsuntoNoSeAbreElPdf() throws IOException {
+        String asunto = "La Segunda - Factura del 11/12/2025 - Orden de reparación 00344693 - Siniestro 12345678";
+
+        ResultadoExtraccion r = service.extraerAdjunto(pdfInexistente, null, ADJUNTO, asunto);
+
+        assertEquals(LocalDate.of(2025, 12, 11), r.fechaFactura());
+        assertEquals("0104-00062226", r.numeroFactura());
+        assertEquals("00344693", r.numeroOrden());
+        assertEquals("12345678", r.numeroSiniestro());
+        assertEquals("La Segunda", r.aseguradora());
+    }
+
+    @Test
+    void sinSiniestroSeLeeElPdf() {
+        String asunto = "La Segunda - Factura del 11/12/2025 - Orden de reparación 00344693";
+
+        assertThrows(IOException.class, () -> service.extraerAdjunto(pdfInexistente, null, ADJUNTO, asunto));
+    }
+
+    @Test
+    void sinFechaSeLeeElPdf() {
+        String asunto = "La Segunda - Orden de reparación 00344693 - Siniestro 12345678";
+
+        assertThrows(IOException.class, () -> service.extraerAdjunto(pdfInexistente, null, ADJUNTO, asunto));
+    }
+
+    @Test
+    void sinLugarLibreElErrorEsReintentableYNoUnRechazo() throws Exception {
+        properties.getLimites().setPresupuestoSegundos(1);
+        Path pdf = Files.writeString(carpeta.resolve("factura.pdf"), "%PDF-1.4");
+
+        // Todos los lugares tomados (extracciones colgadas que siguen corriendo)
+        Semaphore lugares = (Semaphore) ReflectionTestUtils.getField(service, "lugares");
+        lugares.acquire(properties.getLimites().getHilos());
+
+        IOException e = assertThrows(IOException.class, () -> service.extraer(pdf));
+        assertFalse(e instanceof PdfRechazadoException, e.getMessage());
+    }
+}
@@ -0,0 +1,386 @@
+package com.agencia.seguros.service;
+
+import com.agencia.seguros.config.CorreoImapProperties;
+import com.agencia.seguros.config.ExtraccionProperties;
+import com.agencia.seguros.model.CheckpointCorreo;
+import com.agencia.seguros.model.CorreoFallido;
+import com.agencia.seguros.repository.CheckpointCorreoRepository;
+import com.agencia.seguros.repository.CorreoFallidoRepository;
+import com.icegreen.greenmail.configuration.GreenMailConfiguration;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.GreenMailUtil;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import jakarta.mail.Folder;
+import jakarta.mail.Session;
+import jakarta.mail.Store;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeBodyPart;
+import jakarta.mail.internet.MimeMessage;
+import jakarta.mail.internet.MimeMultipart;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Lectura de correo contra un servidor IMAP en memoria (GreenMail): entrega por IDLE,
+ * polling de respaldo cuando el modo push no está activo, checkpoint y correos fallidos.
+ */
+class ImapIdleServiceTests {
+
+    private static final String REMITENTE = "aperez@amiun.com.ar";
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP_IMAP)
+            .withConfiguration(GreenMailConfiguration.aConfig().withUser("facturas@agencia.test", "facturas", "secreto"))
+            .withPerMethodLifecycle(true);
+
+    @TempDir
+    Path carpeta;
+
+    private IngestaPipeline ingestaPipeline;
+    private ExtraccionProperties extraccionProperties;
+    private Map<String, CheckpointCorreo> checkpoints;
+    private Map<Long, CorreoFallido> correosFallidos;
+    private MailReaderService mailReaderService;
+    private ImapIdleService imapIdleService;
+
+    @BeforeEach
+    void preparar() {
+        CorreoImapProperties props = new CorreoImapProperties();
+        props.setHost("127.0.0.1");
+        props.setPort(greenMail.getImap().getPort());
+        props.setUsername("facturas");
+        props.setPassword("secreto");
+        props.setFolder("INBOX");
+        props.setProtocolo("imap");
+        props.setModo("IDLE");
+        props.setIdleReconexionSegundos(1);
+
+        // Checkpoints en memoria, como si fuera la tabla
+        checkpoints = new ConcurrentHashMap<>();
+        CheckpointCorreoRepository checkpointRepository = mock(CheckpointCorreoRepository.class);
+        when(checkpointRepository.findByCarpeta(anyString()))
+                .thenAnswer(i -> Optional.ofNullable(checkpoints.get(i.<String>getArgument(0))));
+        when(checkpointRepository.save(any(CheckpointCorreo.class))).thenAnswer(i -> {
+            CheckpointCorreo c = i.getArgument(0);
+            checkpoints.put(c.getCarpeta(), c);
+            return c;
+        });
+
+        // Correos fallidos en memoria
+        correosFallidos = new ConcurrentHashMap<>();
+        CorreoFallidoRepository correoFallidoRepository = mock(CorreoFallidoRepository.class);
+        when(correoFallidoRepository.findByCarpetaAndUidValidityAndUidGreaterThanEqual(anyString(), anyLong(), anyLong()))
+                .thenAnswer(i -> correosFallidos.values().stream()
+                        .filter(f -> f.getUid() >= i.<Long>getArgument(2))
+                        .toList());
+        when(correoFallidoRepository.save(any(CorreoFallido.class))).thenAnswer(i -> {
+            CorreoFallido f = i.getArgument(0);
+            f.setId(f.getUid());
+            correosFallidos.put(f.getUid(), f);
+            return f;
+        });
+        when(correoFallidoRepository.findById(anyLong()))
+                .thenAnswer(i -> Optional.ofNullable(correosFallidos.get(i.<Long>getArgument(0))));
+        doAnswer(i -> correosFallidos.remove(i.<CorreoFallido>getArgument(0).getUid()))
+                .when(correoFallidoRepository).delete(any(CorreoFallido.class));
+
+        DeduplicadorMensajes deduplicador = mock(DeduplicadorMensajes.class);
+        when(deduplicador.yaProcesados(anyCollection())).thenReturn(java.util.Set.of());
+
+        AlmacenPdfService almacen = new AlmacenPdfService();
+        ReflectionTestUtils.setField(almacen, "rutaArchivos", carpeta.toString());
+
+        ingestaPipeline = mock(IngestaPipeline.class);
+        extraccionProperties = new ExtraccionProperties();
+
+        mailReaderService = new MailReaderService(props, deduplicador, checkpointRepository, correoFallidoRepository,
+                ingestaPipeline, almacen, extraccionProperties);
+        ReflectionTestUtils.setField(mailReaderService, "remitenteEsperado", REMITENTE);
+        ReflectionTestUtils.setField(mailReaderService, "asuntoEsperado", "Has recibido un nuevo comprobante");
+        ReflectionTestUtils.setField(mailReaderService, "mailEnabled", true);
+
+        imapIdleService = new ImapIdleService(props, mailReaderService);
+        ReflectionTestUtils.setField(imapIdleService, "mailEnabled", true);
+    }
+
+    @AfterEach
+    void cerrar() {
+        imapIdleService.detener();
+    }
+
+    @Test
+    void idleEntregaLosCorreosQueLleganConLaCarpetaAbierta() throws Exception {
+        imapIdleService.iniciar();
+        esperarModoPush(true);
+
+        for (int i = 1; i <= 3; i++) {
+            enviarFactura("FC_A_0104_0000000" + i + ".pdf");
+        }
+
+        List<String> nombres = adjuntosEnSpool(3);
+        assertEquals(List.of("FC_A_0104_00000001.pdf", "FC_A_0104_00000002.pdf", "FC_A_0104_00000003.pdf"), nombres);
+    }
+
+    @Test
+    void conModoPushActivoElPollingNoLee() throws Exception {
+        // Lo que hace ImapIdleService al quedar escuchando
+        mailReaderService.setModoPushActivo(true);
+
+        enviarFactura("FC_A_0104_00000010.pdf");
+        mailReaderService.leerNuevosCorreos();
+
+        verify(ingestaPipeline, never()).spool(any());
+    }
+
+    @Test
+    void sinModoPushElPollingDeRespaldoLee() throws Exception {
+        // IDLE caído (o no soportado): ImapIdleService deja modoPushActivo en false
+        imapIdleService.iniciar();
+        esperarModoPush(true);
+        imapIdleService.detener();
+        esperarModoPush(false);
+
+        enviarFactura("FC_A_0104_00000020.pdf");
+        mailReaderService.leerNuevosCorreos();
+        assertEquals(List.of("FC_A_0104_00000020.pdf"), adjuntosEnSpool(1));
+
+        // El checkpoint avanzó: otra pasada no vuelve a encolar el mismo correo
+        mailReaderService.leerNuevosCorreos();
+        assertEquals(1, adjuntosEnSpool(1).size());
+    }
+
+    @Test
+    void sincronizacionesConcurrentesNoEncolanDosVecesNiRetrocedenElCheckpoint() throws Exception {
+        for (int i = 1; i <= 3; i++) {
+            enviarFactura("FC_A_0104_0000002" + i + ".pdf");
+        }
+
+        // Polling y la sincronización inicial de IDLE sobre la misma carpeta, cada uno con su conexión
+        CountDownLatch largada = new CountDownLatch(1);
+        ExecutorService hilos = Executors.newFixedThreadPool(2);
+        List<Future<?>> sincronizaciones = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            sincronizaciones.add(hilos.submit(() -> {
+                Store store = mailReaderService.abrirStore();
+                try {
+                    Folder folder = store.getFolder("INBOX");
+                    folder.open(Folder.READ_WRITE);
+                    largada.await();
+                    mailReaderService.sincronizarCarpeta(folder);
+                    folder.close(false);
+                } finally {
+                    store.close();
+                }
+                return null;
+            }));
+        }
+        largada.countDown();
+        for (Future<?> f : sincronizaciones) {
+            f.get(10, TimeUnit.SECONDS);
+        }
+        hilos.shutdown();
+
+        assertEquals(List.of("FC_A_0104_00000021.pdf", "FC_A_0104_00000022.pdf", "FC_A_0104_00000023.pdf"),
+                adjuntosEnSpool(3));
+        assertEquals(3, checkpoints.get("INBOX").getUltimoUid());
+    }
+
+    @Test
+    void adjuntoQueExcedeElTamanioVaACuarentenaConElMotivo() throws Exception {
+        extraccionProperties.getLimites().setTamanioMaximoMb(1);
+
+        enviarFactura("FC_A_0104_00000030.pdf", new byte[2 * 1024 * 1024]);
+        enviarFactura("FC_A_0104_00000031.pdf");
+        mailReaderService.leerNuevosCorreos();
+
+        List<AdjuntoDescargado> adjuntos = adjuntosCapturados(2);
+        assertEquals("FC_A_0104_00000030.pdf", adjuntos.get(0).nombreOriginal());
+        assertTrue(adjuntos.get(0).motivoCuarentena().contains("tamanio-maximo-mb"));
+        assertTrue(Files.exists(adjuntos.get(0).archivo()));
+        assertNull(adjuntos.get(1).motivoCuarentena());
+    }
+
+    @Test
+    void correoQueSiempreFallaPasaADeadLetterYElCheckpointAvanza() throws Exception {
+        doThrow(new IllegalStateException("spool caído")).when(ingestaPipeline)
+                .spool(argThat(adjuntos -> adjuntos.stream().anyMatch(a -> a.nombreOriginal().startsWith("FALLA"))));
+
+        enviarFactura("FALLA_0104_00000040.pdf");
+        enviarFactura("FC_A_0104_00000041.pdf");
+
+        // Con intentos disponibles el fallido retiene el checkpoint
+        mailReaderService.leerNuevosCorreos();
+        mailReaderService.leerNuevosCorreos();
+        assertEquals(0, checkpoints.get("INBOX").getUltimoUid());
+        assertEquals(2, correosFallidos.get(1L).getIntentos());
+
+        // Al agotarlos queda en DEAD_LETTER y el checkpoint lo pasa
+        mailReaderService.leerNuevosCorreos();
+        assertEquals(2, checkpoints.get("INBOX").getUltimoUid());
+        assertEquals(3, correosFallidos.get(1L).getIntentos());
+        assertEquals("spool caído", correosFallidos.get(1L).getUltimoError());
+
+        clearInvocations(ingestaPipeline);
+        mailReaderService.leerNuevosCorreos();
+        verify(ingestaPipeline, never()).spool(any());
+    }
+
+    @Test
+    void correoEnDeadLetterSeReintentaPorUid() throws Exception {
+        doThrow(new IllegalStateException("spool caído")).when(ingestaPipeline).spool(any());
+        enviarFactura("FC_A_0104_00000045.pdf");
+        for (int i = 0; i < 3; i++) {
+            mailReaderService.leerNuevosCorreos();
+        }
+        assertEquals(1, checkpoints.get("INBOX").getUltimoUid());
+
+        // Sigue fallando: suma el intento y propaga el error
+        assertThrows(IllegalStateException.class, () -> mailReaderService.reintentarCorreo(1L));
+        assertEquals(4, correosFallidos.get(1L).getIntentos());
+
+        // Corregido el problema, el reintento lo procesa y lo saca de correos_fallidos
+        reset(ingestaPipeline);
+        assertTrue(mailReaderService.reintentarCorreo(1L));
+        assertEquals(List.of("FC_A_0104_00000045.pdf"), adjuntosEnSpool(1));
+        assertTrue(correosFallidos.isEmpty());
+    }
+
+    @Test
+    void correoSinMessageIdSeIdentificaPorUid() throws Exception {
+        enviarFactura("FC_A_0104_00000050.pdf", ("%PDF-1.4 sin id").getBytes(StandardCharsets.US_ASCII), false);
+        mailReaderService.leerNuevosCorreos();
+
+        String messageId = adjuntosCapturados(1).get(0).messageId();
+        assertTrue(messageId.matches("<\\d+\\.1\\.INBOX@sin-message-id>"), messageId);
+    }
+
+    // ===== helpers =====
+
+    private void enviarFactura(String nombreAdjunto) throws Exception {
+        enviarFactura(nombreAdjunto, ("%PDF-1.4 " + nombreAdjunto).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private void enviarFactura(String nombreAdjunto, byte[] contenido) throws Exception {
+        enviarFactura(nombreAdjunto, contenido, true);
+    }
+
+    private void enviarFactura(String nombreAdjunto, byte[] contenido, boolean conMessageId) throws Exception {
+        Session session = GreenMailUtil.getSession(ServerSetupTest.SMTP);
+        MimeMessage mensaje = new MimeMessage(session);
+        mensaje.setFrom(new InternetAddress(REMITENTE));
+        mensaje.setRecipients(MimeMessage.RecipientType.TO, "facturas@agencia.test");
+        mensaje.setSubject("Has recibido un nuevo comprobante");
+
+        MimeBodyPart texto = new MimeBodyPart();
+        texto.setText("Adjuntamos el comprobante.");
+
+        MimeBodyPart adjunto = new MimeBodyPart();
+        adjunto.setContent(contenido, "application/pdf");
+        adjunto.setFileName(nombreAdjunto);
+        adjunto.setDisposition(MimeBodyPart.ATTACHMENT);
+
+        MimeMultipart multipart = new MimeMultipart();
+        multipart.addBodyPart(texto);
+        multipart.addBodyPart(adjunto);
+        mensaje.setContent(multipart);
+
+        if (!conMessageId) {
+            // saveChanges() agrega un Message-ID: se guarda primero y se quita después
+            mensaje.saveChanges();
+            mensaje = new MimeMessage(mensaje) {
+                @Override
+                protected void updateMessageID() {
+                }
+            };
+            mensaje.removeHeader("Message-ID");
+        }
+
+        GreenMailUtil.sendMimeMessage(mensaje);
+    }
+
+    private List<String> adjuntosEnSpool(int esperados) {
+        List<String> nombres = new ArrayList<>();
+        for (AdjuntoDescargado a : adjuntosCapturados(esperados)) {
+            nombres.add(a.nombreOriginal());
+        }
+        return nombres;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<AdjuntoDescargado> adjuntosCapturados(int esperados) {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+
+        List<AdjuntoDescargado> adjuntos = new ArrayList<>();
+        while (System.nanoTime() < limite) {
+            // Captor nuevo en cada vuelta: uno reutilizado acumula las capturas de cada verify
+            ArgumentCaptor<List<AdjuntoDescargado>> captor = ArgumentCaptor.forClass(List.class);
+            verify(ingestaPipeline, timeout(10_000).atLeastOnce()).spool(captor.capture());
+            adjuntos.clear();
+            captor.getAllValues().forEach(adjuntos::addAll);
+            if (adjuntos.size() >= esperados) {
+                break;
+            }
+            dormir(100);
+        }
+        return adjuntos;
+    }
+
+    private void esperarModoPush(boolean activo) {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (System.nanoTime() < limite) {
+            if ((boolean) ReflectionTestUtils.getField(mailReaderService, "modoPushActivo") == activo) {
+                // sincronizarCarpeta inicial: darle tiempo a quedar en IDLE
+                dormir(300);
+                return;
+            }
+            dormir(50);
+        }
+        assertTrue(false, "modoPushActivo no pasó a " + activo);
+    }
+
+    private static void dormir(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}